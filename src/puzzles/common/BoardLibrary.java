@@ -0,0 +1,34 @@
+package puzzles.common;
+
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.SolutionCache;
+
+import java.io.IOException;
+
+/**
+ * Where a model gets its boards from. The plain library is just a
+ * configuration's file constructor, so every load reads the file. A shared
+ * library, like the one a {@link SessionManager} hands its sessions, parses
+ * each board once and also shares the solutions found on it.
+ *
+ * @param <C> the type of configuration of the puzzle
+ */
+@FunctionalInterface
+public interface BoardLibrary<C extends Configuration> {
+    /**
+     * The start configuration of a board. The caller owns it and may change it.
+     * @param filename the file the board is in
+     * @return the start configuration
+     * @throws IOException if the board can't be read
+     */
+    C board(String filename) throws IOException;
+
+    /**
+     * The solutions found on a board by everyone playing it.
+     * @param filename the file the board is in
+     * @return the shared cache, or null if solutions aren't shared
+     */
+    default SolutionCache solutions(String filename) {
+        return null;
+    }
+}
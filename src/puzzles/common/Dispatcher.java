@@ -0,0 +1,153 @@
+package puzzles.common;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.function.BinaryOperator;
+
+/**
+ * Delivers a subject's notifications to its observers. An observer added
+ * without an executor is updated right away on the thread that dispatches,
+ * once for every notification, in order. An observer added with an executor
+ * is updated on that executor instead, so a slow observer holds up neither
+ * the subject nor the other observers. A notification still waiting for the
+ * executor is merged with the next one when the dispatcher's merge allows
+ * it, such as a redraw with a message (see {@link Update#merge}). So a burst
+ * of redraws is delivered as one update, while notifications that can't be
+ * merged, such as two messages, are delivered in order.
+ *
+ * @param <Subject> the type of object being observed
+ * @param <ClientData> the data sent with each notification
+ */
+public class Dispatcher<Subject, ClientData> {
+    /** every observer, with how it is updated */
+    private final List<Registration> registrations = new CopyOnWriteArrayList<>();
+    /** combines a waiting notification's data with the next one's, or gives null to keep both */
+    private final BinaryOperator<ClientData> merge;
+
+    /**
+     * A notification waiting to be delivered.
+     * @param subject the subject that sent it
+     * @param data the data sent with it
+     */
+    private record Pending<Subject, ClientData>(Subject subject, ClientData data) {}
+
+    /**
+     * Create a dispatcher that never merges notifications.
+     */
+    public Dispatcher() {
+        this((waiting, next) -> null);
+    }
+
+    /**
+     * Create a dispatcher that merges the notifications waiting for the
+     * executor of an observer.
+     * @param merge combines a waiting notification's data with the next
+     *              one's, or gives null to keep both
+     */
+    public Dispatcher(BinaryOperator<ClientData> merge) {
+        this.merge = merge;
+    }
+
+    /**
+     * Add an observer that is updated on the dispatching thread for every
+     * notification.
+     * @param observer the observer
+     */
+    public void addObserver(Observer<Subject, ClientData> observer) {
+        registrations.add(new Registration(observer, null));
+    }
+
+    /**
+     * Add an observer that is updated on its own executor, with the
+     * notifications waiting for it merged where possible.
+     * @param observer the observer
+     * @param executor runs the observer's updates
+     */
+    public void addObserver(Observer<Subject, ClientData> observer, Executor executor) {
+        registrations.add(new Registration(observer, executor));
+    }
+
+    /**
+     * Notify every observer.
+     * @param subject the subject that has changed
+     * @param data the data to send with the notification
+     */
+    public void dispatch(Subject subject, ClientData data) {
+        for (Registration registration : registrations) {
+            registration.post(new Pending<>(subject, data));
+        }
+    }
+
+    /**
+     * An observer and how it is updated.
+     */
+    private class Registration {
+        /** the observer */
+        private final Observer<Subject, ClientData> observer;
+        /** runs the observer's updates, or null to update it right away */
+        private final Executor executor;
+        /** the notifications not delivered yet, oldest first, guarded by this */
+        private final Deque<Pending<Subject, ClientData>> waiting = new ArrayDeque<>();
+        /** whether a delivery is scheduled on the executor, guarded by this */
+        private boolean scheduled;
+
+        /**
+         * Create a registration.
+         * @param observer the observer
+         * @param executor runs the observer's updates, or null to update it right away
+         */
+        private Registration(Observer<Subject, ClientData> observer, Executor executor) {
+            this.observer = observer;
+            this.executor = executor;
+        }
+
+        /**
+         * Deliver a notification, or queue it up for the executor. It is
+         * merged with the last notification waiting if the merge allows it.
+         * A delivery is only scheduled if none is scheduled already.
+         * @param pending the notification
+         */
+        private void post(Pending<Subject, ClientData> pending) {
+            if (executor == null) {
+                observer.update(pending.subject(), pending.data());
+                return;
+            }
+            boolean schedule;
+            synchronized (this) {
+                Pending<Subject, ClientData> last = waiting.peekLast();
+                ClientData merged = last == null ? null : merge.apply(last.data(), pending.data());
+                if (merged != null) {
+                    waiting.removeLast();
+                    waiting.addLast(new Pending<>(pending.subject(), merged));
+                }
+                else {
+                    waiting.addLast(pending);
+                }
+                schedule = !scheduled;
+                scheduled = true;
+            }
+            if (schedule) {
+                executor.execute(this::deliver);
+            }
+        }
+
+        /**
+         * Deliver every waiting notification on the executor, oldest first.
+         */
+        private void deliver() {
+            List<Pending<Subject, ClientData>> batch;
+            synchronized (this) {
+                batch = new ArrayList<>(waiting);
+                waiting.clear();
+                scheduled = false;
+            }
+            for (Pending<Subject, ClientData> pending : batch) {
+                observer.update(pending.subject(), pending.data());
+            }
+        }
+    }
+}
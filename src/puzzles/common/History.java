@@ -0,0 +1,156 @@
+package puzzles.common;
+
+/**
+ * An immutable undo/redo history of a game. Every change returns a new
+ * history and leaves the old one as it was, so a history can be handed to
+ * another thread or kept as a checkpoint for free. The moves that can be
+ * undone and the moves that can be redone are each kept as a linked stack,
+ * so moving, undoing and redoing take constant time and every history
+ * made from another shares all of its nodes but one. The states are only
+ * referenced, so states that share structure with the state before them,
+ * as the puzzles' configurations share the rows of their grids, make long
+ * histories cheap.
+ *
+ * @param <State> the type of state of the game
+ */
+public final class History<State> {
+    /**
+     * One state in a stack of states.
+     * @param state the state
+     * @param next the state below it, or null at the bottom
+     * @param depth the number of states in the stack from this one down
+     */
+    private record Node<State>(State state, Node<State> next, int depth) {
+        /**
+         * Push a state on a stack.
+         * @param state the state
+         * @param stack the stack, or null if it is empty
+         * @return the new stack
+         */
+        private static <State> Node<State> push(State state, Node<State> stack) {
+            return new Node<>(state, stack, stack == null ? 1 : stack.depth() + 1);
+        }
+    }
+
+    /** the state the game started in */
+    private final State start;
+    /** the state the game is in */
+    private final State current;
+    /** the states before the current one, the latest on top, or null */
+    private final Node<State> undo;
+    /** the states undone, the latest undone on top, or null */
+    private final Node<State> redo;
+
+    /**
+     * Create a history.
+     * @param start the state the game started in
+     * @param current the state the game is in
+     * @param undo the states before the current one
+     * @param redo the states undone
+     */
+    private History(State start, State current, Node<State> undo, Node<State> redo) {
+        this.start = start;
+        this.current = current;
+        this.undo = undo;
+        this.redo = redo;
+    }
+
+    /**
+     * The history of a game that has just started.
+     * @param start the state the game starts in
+     * @param <State> the type of state of the game
+     * @return a history with nothing to undo or redo
+     */
+    public static <State> History<State> of(State start) {
+        return new History<>(start, start, null, null);
+    }
+
+    /**
+     * The state the game is in.
+     * @return the current state
+     */
+    public State current() {
+        return current;
+    }
+
+    /**
+     * The state the game started in.
+     * @return the start state
+     */
+    public State start() {
+        return start;
+    }
+
+    /**
+     * The history after a move. The moves that were undone can't be
+     * redone any more.
+     * @param next the state after the move
+     * @return the new history
+     */
+    public History<State> move(State next) {
+        return new History<>(start, next, Node.push(current, undo), null);
+    }
+
+    /**
+     * The history with the last move undone.
+     * @return the new history, or this one if there is nothing to undo
+     */
+    public History<State> undo() {
+        if (undo == null) {
+            return this;
+        }
+        return new History<>(start, undo.state(), undo.next(), Node.push(current, redo));
+    }
+
+    /**
+     * The history with the last undone move made again.
+     * @return the new history, or this one if there is nothing to redo
+     */
+    public History<State> redo() {
+        if (redo == null) {
+            return this;
+        }
+        return new History<>(start, redo.state(), Node.push(current, undo), redo.next());
+    }
+
+    /**
+     * The history after going back to the start state. Resetting counts as
+     * a move, so it can be undone.
+     * @return the new history, or this one if the game is in the start state
+     */
+    public History<State> reset() {
+        return current == start ? this : move(start);
+    }
+
+    /**
+     * Whether there is a move to undo.
+     * @return true if undo changes the history
+     */
+    public boolean canUndo() {
+        return undo != null;
+    }
+
+    /**
+     * Whether there is an undone move to redo.
+     * @return true if redo changes the history
+     */
+    public boolean canRedo() {
+        return redo != null;
+    }
+
+    /**
+     * The number of moves that can be undone.
+     * @return the number of moves
+     */
+    public int undoCount() {
+        return undo == null ? 0 : undo.depth();
+    }
+
+    /**
+     * The number of undone moves that can be redone.
+     * @return the number of moves
+     */
+    public int redoCount() {
+        return redo == null ? 0 : redo.depth();
+    }
+}
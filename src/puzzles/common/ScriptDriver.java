@@ -0,0 +1,268 @@
+package puzzles.common;
+
+import puzzles.tilt.ptui.TiltPTUI;
+import puzzles.tipover.ptui.TipOverPTUI;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Runs PTUI command scripts without a console and checks what they print
+ * against the expected output, so whole game sessions can be regression
+ * tested by the thousand. Every script runs on its own PTUI with in-memory
+ * input and output, and the scripts are spread over a pool of threads.
+ *
+ * A script named {@code <game>-<board>-ptui-in.txt} starts on
+ * {@code data/<game>/<game>-<board>.txt} and is checked against
+ * {@code output/<game>/<game>-<board>-ptui-out.txt}. The outputs are compared
+ * line by line after turning backslashes into slashes, expanding tabs and
+ * dropping trailing whitespace and trailing blank lines, since the expected
+ * outputs were recorded on other platforms.
+ */
+public class ScriptDriver {
+    /** the end of the name of a command script */
+    public static final String SCRIPT_SUFFIX = "-ptui-in.txt";
+    /** the end of the name of an expected output */
+    public static final String EXPECTED_SUFFIX = "-ptui-out.txt";
+    /** the number of columns between tab stops */
+    private static final int TAB_WIDTH = 4;
+
+    /**
+     * Runs one game of a puzzle's PTUI from a script.
+     */
+    @FunctionalInterface
+    public interface Game {
+        /**
+         * Run a game until the script quits or runs out.
+         * @param board the board to start on
+         * @param input the commands
+         * @param output where everything is printed
+         * @throws IOException if the board can't be read
+         */
+        void run(String board, InputStream input, PrintStream output) throws IOException;
+    }
+
+    /**
+     * The outcome of one script.
+     * @param script the script
+     * @param passed whether the output matched the expected output
+     * @param detail why it didn't pass, or an empty string
+     */
+    public record Result(Path script, boolean passed, String detail) {}
+
+    /** the PTUI of every game, by the name scripts start with */
+    private final Map<String, Game> games;
+    /** the directory the boards are in */
+    private final Path dataDir;
+    /** the directory the expected outputs are in */
+    private final Path expectedDir;
+    /** the number of scripts run at once */
+    private final int threads;
+
+    /**
+     * Create a driver.
+     * @param games the PTUI of every game, by the name scripts start with
+     * @param dataDir the directory the boards are in
+     * @param expectedDir the directory the expected outputs are in
+     * @param threads the number of scripts run at once
+     */
+    public ScriptDriver(Map<String, Game> games, Path dataDir, Path expectedDir, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one thread is needed");
+        }
+        this.games = games;
+        this.dataDir = dataDir;
+        this.expectedDir = expectedDir;
+        this.threads = threads;
+    }
+
+    /**
+     * Run scripts in parallel.
+     * @param scripts the scripts
+     * @return the result of every script, in the order the scripts were given
+     */
+    public List<Result> runAll(List<Path> scripts) {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<Result>> tasks = new ArrayList<>();
+            for (Path script : scripts) {
+                tasks.add(() -> run(script));
+            }
+            List<Result> results = new ArrayList<>();
+            for (Future<Result> future : pool.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+            return results;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while running the scripts", e);
+        }
+        catch (ExecutionException e) {
+            throw new IllegalStateException("A script couldn't be run", e.getCause());
+        }
+        finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Run one script and compare its output with the expected output.
+     * @param script the script
+     * @return the result
+     */
+    public Result run(Path script) {
+        String name = script.getFileName().toString();
+        if (!name.endsWith(SCRIPT_SUFFIX) || name.indexOf('-') < 0) {
+            return new Result(script, false, "not named <game>-<board>" + SCRIPT_SUFFIX);
+        }
+        String stem = name.substring(0, name.length() - SCRIPT_SUFFIX.length());
+        String gameName = stem.substring(0, stem.indexOf('-'));
+        Game game = games.get(gameName);
+        if (game == null) {
+            return new Result(script, false, "no game called " + gameName);
+        }
+        Path expectedFile = expectedDir.resolve(gameName).resolve(stem + EXPECTED_SUFFIX);
+        try {
+            byte[] commands = Files.readAllBytes(script);
+            String expected = Files.readString(expectedFile);
+            ByteArrayOutputStream printed = new ByteArrayOutputStream();
+            PrintStream output = new PrintStream(printed, false, StandardCharsets.UTF_8);
+            String board = dataDir.resolve(gameName).resolve(stem + ".txt").toString();
+            game.run(board, new ByteArrayInputStream(commands), output);
+            output.flush();
+            String difference = compare(expected, printed.toString(StandardCharsets.UTF_8));
+            return new Result(script, difference.isEmpty(), difference);
+        }
+        catch (IOException | RuntimeException e) {
+            return new Result(script, false, e.toString());
+        }
+    }
+
+    /**
+     * Compare two outputs line by line once they are normalized.
+     * @param expected the expected output
+     * @param actual what was printed
+     * @return where they first differ, or an empty string if they match
+     */
+    static String compare(String expected, String actual) {
+        List<String> want = normalize(expected);
+        List<String> got = normalize(actual);
+        for (int line = 0; line < Math.max(want.size(), got.size()); line++) {
+            String wanted = line < want.size() ? want.get(line) : "<end of output>";
+            String printed = line < got.size() ? got.get(line) : "<end of output>";
+            if (!wanted.equals(printed)) {
+                return "line " + (line + 1) + ": expected '" + wanted + "' but got '" + printed + "'";
+            }
+        }
+        return "";
+    }
+
+    /**
+     * Split an output into lines with backslashes turned into slashes, tabs
+     * expanded, trailing whitespace dropped and no trailing blank lines.
+     * @param text the output
+     * @return the normalized lines
+     */
+    static List<String> normalize(String text) {
+        List<String> lines = new ArrayList<>();
+        for (String line : text.split("\r?\n", -1)) {
+            StringBuilder expanded = new StringBuilder();
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (c == '\t') {
+                    do {
+                        expanded.append(' ');
+                    } while (expanded.length() % TAB_WIDTH != 0);
+                }
+                else {
+                    expanded.append(c == '\\' ? '/' : c);
+                }
+            }
+            lines.add(expanded.toString().stripTrailing());
+        }
+        while (!lines.isEmpty() && lines.get(lines.size() - 1).isEmpty()) {
+            lines.remove(lines.size() - 1);
+        }
+        return lines;
+    }
+
+    /**
+     * Find the scripts in the given files and directories.
+     * @param paths script files, or directories searched for scripts
+     * @return the scripts, sorted by name within each directory
+     * @throws IOException if a directory can't be searched
+     */
+    public static List<Path> findScripts(List<Path> paths) throws IOException {
+        List<Path> scripts = new ArrayList<>();
+        for (Path path : paths) {
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> found = Files.walk(path)) {
+                    found.filter(p -> p.getFileName().toString().endsWith(SCRIPT_SUFFIX))
+                            .sorted()
+                            .forEach(scripts::add);
+                }
+            }
+            else {
+                scripts.add(path);
+            }
+        }
+        return scripts;
+    }
+
+    /**
+     * Run the scripts in the given files and directories, the input directory
+     * by default, print the result of each and exit with status 1 if any
+     * failed. Run it from the directory holding data and output.
+     * @param args optionally -j and the number of threads, then the scripts
+     *             and directories of scripts
+     * @throws IOException if a directory can't be searched
+     */
+    public static void main(String[] args) throws IOException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<Path> paths = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-j") && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            }
+            else {
+                paths.add(Path.of(args[i]));
+            }
+        }
+        if (paths.isEmpty()) {
+            paths.add(Path.of("input"));
+        }
+        Map<String, Game> games = Map.of("tilt", TiltPTUI::runScript, "tipover", TipOverPTUI::runScript);
+        ScriptDriver driver = new ScriptDriver(games, Path.of("data"), Path.of("output"), threads);
+        List<Result> results = driver.runAll(findScripts(paths));
+        int failed = 0;
+        for (Result result : results) {
+            if (result.passed()) {
+                System.out.println("PASS " + result.script());
+            }
+            else {
+                failed++;
+                System.out.println("FAIL " + result.script() + ": " + result.detail());
+            }
+        }
+        System.out.println((results.size() - failed) + " passed, " + failed + " failed");
+        if (failed > 0) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package puzzles.common;
+
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.SolutionCache;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the models of many players, one per session, for a game server. The
+ * sessions share one board library: every board is parsed once, and each
+ * session gets its own copy of it to play on, while the solutions found on a
+ * board are shared by every session on it, so a hint one player asked for
+ * answers the others for free. A board and its solutions are dropped as
+ * soon as no session is playing it, so the memory used stays in step with
+ * the sessions. Sessions that haven't been used for a while are closed and
+ * dropped by a background thread. All methods are thread safe.
+ *
+ * A Tilt server would create its manager with
+ * {@code new SessionManager<>(TiltConfig::new, config -> config,
+ * (file, boards) -> new TiltModel(file, false, boards), Duration.ofMinutes(30))}.
+ *
+ * @param <C> the type of configuration of the puzzle
+ * @param <M> the type of model of the puzzle
+ */
+public class SessionManager<C extends Configuration, M extends AutoCloseable> implements AutoCloseable {
+    /**
+     * Creates the model of a new session.
+     * @param <C> the type of configuration of the puzzle
+     * @param <M> the type of model of the puzzle
+     */
+    @FunctionalInterface
+    public interface ModelFactory<C extends Configuration, M> {
+        /**
+         * Create a model.
+         * @param filename the board to start on
+         * @param boards the library the model must load its boards from
+         * @return the model
+         * @throws IOException if the board can't be read
+         */
+        M create(String filename, BoardLibrary<C> boards) throws IOException;
+    }
+
+    /** reports the models that fail to close */
+    private static final Logger LOGGER = Logger.getLogger(SessionManager.class.getName());
+
+    /**
+     * A board parsed once for everyone playing it.
+     */
+    private static class Board<C> {
+        /** the start configuration, never played on */
+        private final C start;
+        /** the solutions found on the board */
+        private final SolutionCache solutions = new SolutionCache();
+        /** the number of sessions playing the board, guarded by the manager */
+        private int users;
+
+        /**
+         * Create a board nobody plays yet.
+         * @param start the start configuration
+         */
+        private Board(C start) {
+            this.start = start;
+        }
+    }
+
+    /**
+     * A player's model, the board it plays and when it was last used.
+     */
+    private class Session {
+        /** where the model gets its boards, which keeps track of its board */
+        private final SessionLibrary library = new SessionLibrary();
+        /** the player's model */
+        private M model;
+        /** when the session was last used, in System.nanoTime() */
+        private volatile long lastUsed = System.nanoTime();
+    }
+
+    /**
+     * The library of one session. It counts the session as a user of the
+     * board it loaded last, so the board is dropped once no session plays it.
+     */
+    private class SessionLibrary implements BoardLibrary<C> {
+        /** the file of the board the session plays, or null, guarded by the manager */
+        private String current;
+        /** whether the session has ended, guarded by the manager */
+        private boolean closed;
+
+        /**
+         * The start configuration of a board, shared with the other
+         * sessions unless this one has ended.
+         * @param filename the file the board is in
+         * @return a copy of the start configuration
+         * @throws IOException if the board can't be read
+         */
+        @Override
+        public C board(String filename) throws IOException {
+            C start = acquire(this, filename);
+            return start == null ? parser.board(filename) : copier.apply(start);
+        }
+
+        /**
+         * The solutions shared by the sessions playing a board.
+         * @param filename the file the board is in
+         * @return the shared cache, or null if the board isn't shared
+         */
+        @Override
+        public SolutionCache solutions(String filename) {
+            Board<C> board = boards.get(filename);
+            return board == null ? null : board.solutions;
+        }
+    }
+
+    /** reads a board from its file */
+    private final BoardLibrary<C> parser;
+    /** makes a copy of a configuration a session can change */
+    private final UnaryOperator<C> copier;
+    /** creates the model of a new session */
+    private final ModelFactory<C, M> factory;
+    /** how long a session may go unused before it is dropped */
+    private final long idleNanos;
+    /** every board some session plays, by file name, changed while holding the manager's lock */
+    private final Map<String, Board<C>> boards = new ConcurrentHashMap<>();
+    /** every session, by id */
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    /** drops the idle sessions */
+    private final ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "session-evictor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Create a manager with no sessions.
+     * @param parser reads a board from its file
+     * @param copier makes a copy of a configuration that can be changed
+     *               without changing the original, or returns it if
+     *               configurations never change
+     * @param factory creates the model of a new session
+     * @param idle how long a session may go unused before it is dropped
+     */
+    public SessionManager(BoardLibrary<C> parser, UnaryOperator<C> copier, ModelFactory<C, M> factory,
+                          Duration idle) {
+        if (idle.isNegative() || idle.isZero()) {
+            throw new IllegalArgumentException("The idle time must be positive");
+        }
+        this.parser = parser;
+        this.copier = copier;
+        this.factory = factory;
+        this.idleNanos = idle.toNanos();
+        long period = Math.max(1, idle.toMillis() / 2);
+        evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Get a player's model, creating their session on a board if they don't
+     * have one. Either way the session counts as used.
+     * @param id the session id
+     * @param filename the board a new session starts on
+     * @return the model
+     * @throws IOException if the session is new and its board can't be read
+     */
+    public M session(String id, String filename) throws IOException {
+        try {
+            Session session = sessions.computeIfAbsent(id, key -> {
+                Session created = new Session();
+                try {
+                    created.model = factory.create(filename, created.library);
+                    return created;
+                }
+                catch (IOException e) {
+                    release(created.library);
+                    throw new UncheckedIOException(e);
+                }
+            });
+            session.lastUsed = System.nanoTime();
+            return session.model;
+        }
+        catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Get a player's model if they have a session. The session counts as used.
+     * @param id the session id
+     * @return the model, or null if there is no such session
+     */
+    public M get(String id) {
+        Session session = sessions.get(id);
+        if (session == null) {
+            return null;
+        }
+        session.lastUsed = System.nanoTime();
+        return session.model;
+    }
+
+    /**
+     * End a player's session and close its model. Its board is dropped if
+     * no other session plays it.
+     * @param id the session id
+     * @return whether there was such a session
+     */
+    public boolean close(String id) {
+        Session session = sessions.remove(id);
+        if (session == null) {
+            return false;
+        }
+        end(id, session);
+        return true;
+    }
+
+    /**
+     * End every session that has gone unused for longer than the idle time.
+     * This runs on its own every half of the idle time.
+     * @return the number of sessions ended
+     */
+    public int evictIdle() {
+        long now = System.nanoTime();
+        int evicted = 0;
+        for (Map.Entry<String, Session> entry : sessions.entrySet()) {
+            Session session = entry.getValue();
+            if (now - session.lastUsed > idleNanos && sessions.remove(entry.getKey(), session)) {
+                end(entry.getKey(), session);
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * The number of sessions.
+     * @return the number of sessions
+     */
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * The number of boards the sessions play.
+     * @return the number of boards shared by the sessions
+     */
+    public int boardCount() {
+        return boards.size();
+    }
+
+    /**
+     * Stop dropping idle sessions and end every session.
+     */
+    @Override
+    public void close() {
+        evictor.shutdownNow();
+        for (String id : sessions.keySet()) {
+            close(id);
+        }
+    }
+
+    /**
+     * Count a session as a user of a board, parsing the board if no session
+     * plays it yet, and stop counting it as a user of the board it played
+     * before. The board is parsed without holding the lock, so two sessions
+     * asking for a new board at once may both parse it, but only one of the
+     * results is kept.
+     * @param library the library of the session
+     * @param filename the file the board is in
+     * @return the start configuration of the board, or null if the session
+     *         has ended and the board isn't shared with it
+     * @throws IOException if the board can't be read
+     */
+    private C acquire(SessionLibrary library, String filename) throws IOException {
+        synchronized (this) {
+            if (library.closed) {
+                return null;
+            }
+            Board<C> board = boards.get(filename);
+            if (board != null) {
+                return use(library, filename, board);
+            }
+        }
+        C parsed = parser.board(filename);
+        synchronized (this) {
+            if (library.closed) {
+                return null;
+            }
+            return use(library, filename, boards.computeIfAbsent(filename, key -> new Board<>(parsed)));
+        }
+    }
+
+    /**
+     * Make a board the one a session plays. Must hold the lock.
+     * @param library the library of the session
+     * @param filename the file the board is in
+     * @param board the board
+     * @return the start configuration of the board
+     */
+    private C use(SessionLibrary library, String filename, Board<C> board) {
+        board.users++;
+        release(library);
+        library.current = filename;
+        return board.start;
+    }
+
+    /**
+     * Stop counting a session as a user of its board, dropping the board if
+     * it was the last.
+     * @param library the library of the session
+     */
+    private synchronized void release(SessionLibrary library) {
+        if (library.current == null) {
+            return;
+        }
+        Board<C> board = boards.get(library.current);
+        library.current = null;
+        if (board != null && --board.users == 0) {
+            boards.values().remove(board);
+        }
+    }
+
+    /**
+     * Close the model of a session that has been dropped and let go of its
+     * board. A model that fails to close is dropped all the same.
+     * @param id the session id
+     * @param session the session
+     */
+    private void end(String id, Session session) {
+        synchronized (this) {
+            session.library.closed = true;
+            release(session.library);
+        }
+        try {
+            session.model.close();
+        }
+        catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Couldn't close session " + id, e);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package puzzles.common;
+
+/**
+ * What a model tells its observers: a message to show, and whether the board
+ * has changed and has to be redrawn. A move that has something to say sends
+ * both in one update, so the message and the redraw arrive together.
+ *
+ * @param message the message to show, or "" for none
+ * @param boardChanged whether the board has changed
+ */
+public record Update(String message, boolean boardChanged) {
+    /** the board has changed and there is nothing to say */
+    public static final Update REDRAW = new Update("", true);
+
+    /**
+     * Does the update carry a message?
+     * @return true if there is a message to show
+     */
+    public boolean hasMessage() {
+        return !message.isEmpty();
+    }
+
+    /**
+     * Combine an update still waiting to be delivered with the next one, so
+     * they can be delivered as one. The observers look at the model itself
+     * for its state, so that only fails when both carry a message.
+     * @param waiting the update waiting to be delivered
+     * @param next the update after it
+     * @return the combined update, or null if both carry a message
+     */
+    public static Update merge(Update waiting, Update next) {
+        if (waiting.hasMessage() && next.hasMessage()) {
+            return null;
+        }
+        return new Update(next.hasMessage() ? next.message() : waiting.message(),
+                waiting.boardChanged() || next.boardChanged());
+    }
+}
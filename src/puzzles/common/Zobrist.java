@@ -0,0 +1,122 @@
+package puzzles.common;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A Zobrist hashing table for grid puzzles. Every (cell, piece type) pair is
+ * given a fixed random 64-bit key, and the hash of a board is the XOR of the
+ * keys of its pieces. Because XOR is its own inverse, moving a piece from one
+ * cell to another only needs two XORs, so a configuration can derive its
+ * child's hash in time proportional to the pieces that moved instead of
+ * rescanning the whole grid.
+ *
+ * The keys depend only on the row, column and piece, never on the table's
+ * size, so every table hands out the same key for the same cell and piece.
+ * Tables are shared per board shape through {@link #forBoard(int, int, int)}.
+ */
+public class Zobrist {
+    /** tables already built, by board shape */
+    private static final Map<String, Zobrist> TABLES = new ConcurrentHashMap<>();
+
+    /** number of rows on the board */
+    private final int rows;
+    /** number of columns on the board */
+    private final int cols;
+    /** number of piece types */
+    private final int pieces;
+    /** the keys, indexed by (row * cols + col) * pieces + piece */
+    private final long[] keys;
+
+    /**
+     * Build the table for a board of the given shape.
+     * @param rows the number of rows
+     * @param cols the number of columns
+     * @param pieces the number of piece types, numbered from 0
+     */
+    public Zobrist(int rows, int cols, int pieces) {
+        this.rows = rows;
+        this.cols = cols;
+        this.pieces = pieces;
+        this.keys = new long[rows * cols * pieces];
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                for (int piece = 0; piece < pieces; piece++) {
+                    keys[(row * cols + col) * pieces + piece] = mix(row, col, piece);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the shared table for a board shape, building it the first time.
+     * @param rows the number of rows
+     * @param cols the number of columns
+     * @param pieces the number of piece types, numbered from 0
+     * @return the table
+     */
+    public static Zobrist forBoard(int rows, int cols, int pieces) {
+        return TABLES.computeIfAbsent(rows + "x" + cols + "x" + pieces,
+                shape -> new Zobrist(rows, cols, pieces));
+    }
+
+    /**
+     * The key of a piece on a cell.
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @param piece the piece type
+     * @return the 64-bit key
+     */
+    public long key(int row, int col, int piece) {
+        if (row < 0 || row >= rows || col < 0 || col >= cols || piece < 0 || piece >= pieces) {
+            return mix(row, col, piece);
+        }
+        return keys[(row * cols + col) * pieces + piece];
+    }
+
+    /**
+     * The key of a piece on a cell.
+     * @param coords the cell
+     * @param piece the piece type
+     * @return the 64-bit key
+     */
+    public long key(Coordinates coords, int piece) {
+        return key(coords.row(), coords.col(), piece);
+    }
+
+    /**
+     * The key of a piece moving from one cell to another, to be XORed into a
+     * hash to apply the move.
+     * @param from the cell the piece leaves
+     * @param to the cell the piece arrives on
+     * @param piece the piece type
+     * @return the 64-bit key
+     */
+    public long move(Coordinates from, Coordinates to, int piece) {
+        return key(from, piece) ^ key(to, piece);
+    }
+
+    /**
+     * Fold a 64-bit hash into an int for {@link Object#hashCode()}.
+     * @param hash the hash
+     * @return the folded hash
+     */
+    public static int fold(long hash) {
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    /**
+     * Derive the key of a cell and piece with the SplitMix64 finalizer.
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @param piece the piece type
+     * @return the 64-bit key
+     */
+    private static long mix(int row, int col, int piece) {
+        long z = ((long) row << 42) ^ ((long) col << 21) ^ piece;
+        z += 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,96 @@
+package puzzles.common.solver;
+
+import java.util.*;
+
+/**
+ * An A* solver. Configurations are expanded in order of f = g + h, where g is
+ * the number of moves from the start and h is the {@link Heuristic}'s estimate
+ * of the moves left, with ties going to the configuration generated first.
+ * With an admissible heuristic the path is as short as the BFS Solver's, but
+ * far fewer configurations need to be expanded. Dead ends and configurations
+ * the heuristic reports as {@link Heuristic#UNREACHABLE} are never queued.
+ */
+public class AStarSolver extends Solver {
+    /** the heuristic guiding the search */
+    private final Heuristic heuristic;
+
+    /**
+     * A queued configuration.
+     * @param config the configuration
+     * @param g the number of moves from the start
+     * @param f g plus the heuristic estimate
+     * @param order the generation order, for breaking ties
+     */
+    private record Node(Configuration config, int g, int f, long order) {}
+
+    /**
+     * Create an A* solver.
+     * @param heuristic the heuristic guiding the search
+     */
+    public AStarSolver(Heuristic heuristic) {
+        this.heuristic = heuristic;
+    }
+
+    /**
+     * Search in order of f. A configuration reached again with a smaller g is
+     * queued again, so inconsistent heuristics still give shortest paths.
+     *
+     * @param c The inputted Configuration to find the solution of
+     * @return The fastest possible path to get to the desired solution.
+     */
+    @Override
+    public List<Configuration> solve(Configuration c) {
+        if (provablyUnsolvable(c)) {
+            return new LinkedList<>();
+        }
+        PriorityQueue<Node> open = new PriorityQueue<>(
+                Comparator.comparingInt(Node::f).thenComparingLong(Node::order));
+        Map<Configuration, Integer> bestG = new HashMap<>();
+        Map<Configuration, Configuration> predecessor = new HashMap<>();
+        long order = 0;
+        int total = 1;
+        Configuration end = null;
+        int h = heuristic.estimate(c);
+        if (h != Heuristic.UNREACHABLE) {
+            open.add(new Node(c, 0, h, order++));
+            bestG.put(c, 0);
+            predecessor.put(c, null);
+        }
+        while (!open.isEmpty()) {
+            Node node = open.remove();
+            if (node.g() > bestG.get(node.config())) {
+                continue;
+            }
+            if (node.config().isSolution()) {
+                end = node.config();
+                break;
+            }
+            for (Configuration nbr : node.config().getNeighbors()) {
+                total++;
+                int g = node.g() + 1;
+                Integer known = bestG.get(nbr);
+                if (known != null && known <= g) {
+                    continue;
+                }
+                if (nbr.isDeadEnd()) {
+                    bestG.put(nbr, g);
+                    continue;
+                }
+                int estimate = heuristic.estimate(nbr);
+                if (estimate == Heuristic.UNREACHABLE) {
+                    continue;
+                }
+                bestG.put(nbr, g);
+                predecessor.put(nbr, node.config());
+                open.add(new Node(nbr, g, g + estimate, order++));
+            }
+        }
+        totalConfig = total;
+        uniqueConfig = bestG.size();
+        List<Configuration> path = new LinkedList<>();
+        for (Configuration curr = end; curr != null; curr = predecessor.get(curr)) {
+            path.add(0, curr);
+        }
+        return path;
+    }
+}
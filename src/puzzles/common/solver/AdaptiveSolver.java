@@ -0,0 +1,213 @@
+package puzzles.common.solver;
+
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * A front end that picks a solver for each puzzle by first estimating how big
+ * its search is. The estimate uses Knuth's random probing: a probe walks down
+ * from the start, taking a random move each step, and the product of the
+ * number of choices seen along the way estimates how many configurations the
+ * search has at each depth. The average over many probes estimates the size of the search and
+ * the average number of choices estimates its branching factor.
+ *
+ * Small searches go to the plain BFS {@link Solver}. Bigger ones go to
+ * {@link AStarSolver} when there is a heuristic, or to the parallel
+ * {@link SortedLayerSolver} when there isn't. The biggest go to
+ * {@link HdaStarSolver} with a heuristic, or else to the {@link OffHeapSolver}
+ * when there is a codec for the board and the {@link FrontierSolver} when there
+ * isn't. The estimate is logged at FINE next to the real counts after every
+ * solve, so the thresholds can be tuned.
+ */
+public class AdaptiveSolver extends Solver {
+    /** the estimated size up to which the plain BFS is used */
+    public static final double SMALL = 10_000;
+    /** the estimated size above which memory is the main concern */
+    public static final double HUGE = 20_000_000;
+    /** the number of random probes in a pass */
+    private static final int PROBES = 64;
+    /** the number of passes of probes, only the last one is used for the estimate */
+    private static final int PASSES = 4;
+    /** the deepest a probe goes */
+    private static final int MAX_PROBE_DEPTH = 32;
+    /** the seed of the probes, so the same board always gets the same estimate */
+    private static final long SEED = 0x5eed;
+    /** where the estimates are logged */
+    private static final Logger LOGGER = Logger.getLogger(AdaptiveSolver.class.getName());
+
+    /**
+     * The solvers the front end chooses between.
+     */
+    public enum Strategy {
+        /** the plain BFS Solver */
+        SEQUENTIAL_BFS,
+        /** the SortedLayerSolver expanding on several threads */
+        PARALLEL_BFS,
+        /** the AStarSolver */
+        INFORMED,
+        /** the HdaStarSolver */
+        PARALLEL_INFORMED,
+        /** the OffHeapSolver */
+        EXTERNAL_MEMORY,
+        /** the FrontierSolver */
+        FRONTIER
+    }
+
+    /** the heuristic for the board, or null if there is none */
+    private final Heuristic heuristic;
+    /** the codec for the board, or null if there is none */
+    private final StateCodec codec;
+    /** the estimated size of the last search */
+    private double estimatedSize;
+    /** the estimated branching factor of the last search */
+    private double estimatedBranching;
+    /** the solver used for the last search */
+    private Strategy strategy;
+
+    /**
+     * Create a front end that only picks uninformed, in-memory solvers.
+     */
+    public AdaptiveSolver() {
+        this(null, null);
+    }
+
+    /**
+     * Create a front end.
+     * @param heuristic a heuristic for the board, or null if there is none
+     * @param codec a codec for the board, or null if there is none
+     */
+    public AdaptiveSolver(Heuristic heuristic, StateCodec codec) {
+        this.heuristic = heuristic;
+        this.codec = codec;
+    }
+
+    /**
+     * Estimate the size of the search, solve with the chosen solver and log
+     * the estimate next to the real counts. The layer listener is handed on
+     * to the chosen solver.
+     *
+     * @param c The inputted Configuration to find the solution of
+     * @return The path found by the chosen solver
+     */
+    @Override
+    public List<Configuration> solve(Configuration c) {
+        estimatedSize = 0;
+        estimatedBranching = 0;
+        strategy = null;
+        if (provablyUnsolvable(c)) {
+            return new LinkedList<>();
+        }
+        estimate(c);
+        strategy = choose(estimatedSize);
+        Solver solver = switch (strategy) {
+            case SEQUENTIAL_BFS -> new Solver();
+            case PARALLEL_BFS -> new SortedLayerSolver(SortedLayerSolver.ALL_LAYERS, true);
+            case INFORMED -> new AStarSolver(heuristic);
+            case PARALLEL_INFORMED -> new HdaStarSolver(heuristic);
+            case EXTERNAL_MEMORY -> new OffHeapSolver(codec);
+            case FRONTIER -> new FrontierSolver();
+        };
+        solver.setLayerListener(getLayerListener());
+        List<Configuration> path = solver.solve(c);
+        totalConfig = solver.getTotal();
+        uniqueConfig = solver.getUnique();
+        LOGGER.fine(() -> String.format("estimated %.0f configurations (branching %.2f), used %s: "
+                        + "%d total, %d unique, path of %d",
+                estimatedSize, estimatedBranching, strategy, totalConfig, uniqueConfig, path.size()));
+        return path;
+    }
+
+    /**
+     * Pick a solver for a search of the given size.
+     * @param size the estimated number of configurations
+     * @return the solver to use
+     */
+    private Strategy choose(double size) {
+        if (size <= SMALL) {
+            return Strategy.SEQUENTIAL_BFS;
+        }
+        if (heuristic != null) {
+            return size <= HUGE ? Strategy.INFORMED : Strategy.PARALLEL_INFORMED;
+        }
+        if (size <= HUGE) {
+            return Strategy.PARALLEL_BFS;
+        }
+        return codec != null ? Strategy.EXTERNAL_MEMORY : Strategy.FRONTIER;
+    }
+
+    /**
+     * Estimate the size and branching factor of the search from the start
+     * configuration with random probes. Plain Knuth probing counts every path
+     * to a configuration, which is far too many on puzzles where different
+     * move orders reach the same board. So the probes share the shallowest
+     * depth each configuration has been seen at, and a move only counts as a
+     * choice if it doesn't lead somewhere already known to be closer to the
+     * start. The first passes of probes only fill in those depths, and the
+     * estimate is taken from the last pass.
+     * @param start the start configuration
+     */
+    private void estimate(Configuration start) {
+        Random random = new Random(SEED);
+        Map<Configuration, Integer> shallowest = new HashMap<>();
+        shallowest.put(start, 0);
+        double size = 0;
+        long choices = 0;
+        long steps = 0;
+        for (int pass = 0; pass < PASSES; pass++) {
+            size = 0;
+            choices = 0;
+            steps = 0;
+            for (int probe = 0; probe < PROBES; probe++) {
+                Configuration current = start;
+                double width = 1;
+                size += 1;
+                for (int depth = 0; depth < MAX_PROBE_DEPTH && !current.isSolution(); depth++) {
+                    List<Configuration> next = new ArrayList<>();
+                    for (Configuration nbr : current.getNeighbors()) {
+                        Integer known = shallowest.get(nbr);
+                        if ((known == null || known > depth) && !nbr.isDeadEnd()) {
+                            next.add(nbr);
+                        }
+                    }
+                    if (next.isEmpty()) {
+                        break;
+                    }
+                    for (Configuration nbr : next) {
+                        shallowest.merge(nbr, depth + 1, Math::min);
+                    }
+                    choices += next.size();
+                    steps++;
+                    width *= next.size();
+                    size += width;
+                    current = next.get(random.nextInt(next.size()));
+                }
+            }
+        }
+        estimatedSize = size / PROBES;
+        estimatedBranching = steps == 0 ? 0 : (double) choices / steps;
+    }
+
+    /**
+     * The estimated number of configurations in the last search.
+     * @return the estimated size
+     */
+    public double getEstimatedSize() {
+        return estimatedSize;
+    }
+
+    /**
+     * The estimated branching factor of the last search.
+     * @return the average number of new moves from a configuration
+     */
+    public double getEstimatedBranching() {
+        return estimatedBranching;
+    }
+
+    /**
+     * The solver used for the last search.
+     * @return the strategy, or null if no search was needed
+     */
+    public Strategy getStrategy() {
+        return strategy;
+    }
+}
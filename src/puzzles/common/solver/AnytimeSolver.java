@@ -0,0 +1,157 @@
+package puzzles.common.solver;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * An anytime solver for boards too big to solve optimally. It runs weighted
+ * A*, ordering the queue by g + weight * h, which heads for a solution much
+ * more greedily than {@link AStarSolver} and finds a first path quickly. The
+ * search then keeps going within its time budget: every later solution that
+ * is shorter than the best one so far replaces it and is published to the
+ * listener, and configurations whose g + h can't beat the best path are
+ * dropped. If the queue runs out before the budget does, the best path is
+ * known to be the shortest, given an admissible heuristic.
+ */
+public class AnytimeSolver extends Solver {
+    /** the default weight on the heuristic */
+    public static final double DEFAULT_WEIGHT = 3.0;
+
+    /** the heuristic guiding the search */
+    private final Heuristic heuristic;
+    /** the weight on the heuristic in the queue order */
+    private final double weight;
+    /** how long a solve may keep improving its path, in milliseconds */
+    private final long budgetMillis;
+    /** told about every path that is better than the ones before it */
+    private final Consumer<List<Configuration>> listener;
+    /** whether the last solve proved its path is the shortest */
+    private boolean optimal;
+
+    /**
+     * A queued configuration.
+     * @param config the configuration
+     * @param g the number of moves from the start
+     * @param h the heuristic estimate
+     * @param priority g plus the weighted estimate
+     * @param order the generation order, for breaking ties
+     */
+    private record Node(Configuration config, int g, int h, double priority, long order) {}
+
+    /**
+     * Create a solver that only returns its best path.
+     * @param heuristic the heuristic guiding the search
+     * @param weight the weight on the heuristic, 1 for plain A*
+     * @param budgetMillis how long a solve may run, in milliseconds
+     */
+    public AnytimeSolver(Heuristic heuristic, double weight, long budgetMillis) {
+        this(heuristic, weight, budgetMillis, path -> {});
+    }
+
+    /**
+     * Create a solver that publishes every improved path.
+     * @param heuristic the heuristic guiding the search
+     * @param weight the weight on the heuristic, 1 for plain A*
+     * @param budgetMillis how long a solve may run, in milliseconds
+     * @param listener told about each path shorter than the ones before it
+     */
+    public AnytimeSolver(Heuristic heuristic, double weight, long budgetMillis,
+                         Consumer<List<Configuration>> listener) {
+        if (weight < 1) {
+            throw new IllegalArgumentException("The weight can't be below 1");
+        }
+        this.heuristic = heuristic;
+        this.weight = weight;
+        this.budgetMillis = budgetMillis;
+        this.listener = listener;
+    }
+
+    /**
+     * Search until the queue is empty or the time budget is spent.
+     *
+     * @param c The inputted Configuration to find the solution of
+     * @return The best path found, or an empty list if none was found
+     */
+    @Override
+    public List<Configuration> solve(Configuration c) {
+        optimal = false;
+        if (provablyUnsolvable(c)) {
+            optimal = true;
+            return new LinkedList<>();
+        }
+        long deadline = System.nanoTime() + budgetMillis * 1_000_000L;
+        PriorityQueue<Node> open = new PriorityQueue<>(
+                Comparator.comparingDouble(Node::priority).thenComparingLong(Node::order));
+        Map<Configuration, Integer> bestG = new HashMap<>();
+        Map<Configuration, Configuration> predecessor = new HashMap<>();
+        long order = 0;
+        int total = 1;
+        Configuration end = null;
+        int bound = Integer.MAX_VALUE;
+        int h = heuristic.estimate(c);
+        if (h != Heuristic.UNREACHABLE) {
+            open.add(new Node(c, 0, h, weight * h, order++));
+            bestG.put(c, 0);
+            predecessor.put(c, null);
+        }
+        while (!open.isEmpty() && System.nanoTime() < deadline) {
+            Node node = open.remove();
+            if (node.g() > bestG.get(node.config()) || node.g() + node.h() >= bound) {
+                continue;
+            }
+            if (node.config().isSolution()) {
+                end = node.config();
+                bound = node.g();
+                listener.accept(pathTo(predecessor, end));
+                continue;
+            }
+            for (Configuration nbr : node.config().getNeighbors()) {
+                total++;
+                int g = node.g() + 1;
+                Integer known = bestG.get(nbr);
+                if (known != null && known <= g) {
+                    continue;
+                }
+                if (nbr.isDeadEnd()) {
+                    bestG.put(nbr, g);
+                    continue;
+                }
+                int estimate = heuristic.estimate(nbr);
+                if (estimate == Heuristic.UNREACHABLE || g + estimate >= bound) {
+                    continue;
+                }
+                bestG.put(nbr, g);
+                predecessor.put(nbr, node.config());
+                open.add(new Node(nbr, g, estimate, g + weight * estimate, order++));
+            }
+        }
+        optimal = open.isEmpty();
+        totalConfig = total;
+        uniqueConfig = bestG.size();
+        return end == null ? new LinkedList<>() : pathTo(predecessor, end);
+    }
+
+    /**
+     * Follow the predecessors back from a configuration to the start.
+     * @param predecessor the predecessor of every configuration reached
+     * @param end the last configuration of the path
+     * @return the path from the start to end
+     */
+    private static List<Configuration> pathTo(Map<Configuration, Configuration> predecessor,
+                                              Configuration end) {
+        List<Configuration> path = new LinkedList<>();
+        for (Configuration curr = end; curr != null; curr = predecessor.get(curr)) {
+            path.add(0, curr);
+        }
+        return path;
+    }
+
+    /**
+     * Whether the last solve ran out of configurations before it ran out of
+     * time, which proves its path (or that there is none) is optimal.
+     * @return true if the last result is known to be the best possible
+     */
+    public boolean isOptimal() {
+        return optimal;
+    }
+}
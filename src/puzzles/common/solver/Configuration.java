@@ -20,6 +20,49 @@ public interface Configuration {
      */
     Collection<Configuration> getNeighbors();
 
+    /**
+     * A cheap static check, run by the solvers before they search, that can
+     * prove a configuration has no solution without exploring its moves.
+     * It must never report a solvable configuration as unsolvable.
+     * @return true if the configuration certainly can't reach a solution
+     */
+    default boolean isUnsolvable() {
+        return false;
+    }
+
+    /**
+     * A cheap check, run by the solvers on every configuration they
+     * generate, for a configuration that can never lead to a solution.
+     * Every solver still remembers dead ends as visited, and counts each
+     * once as a unique configuration, but never expands them, so their
+     * whole subtree is skipped. It must never be true for a
+     * configuration that can reach a solution, including a solution itself.
+     * @return true if nothing reachable from here is a solution
+     */
+    default boolean isDeadEnd() {
+        return false;
+    }
+
+    /**
+     * A 64-bit fingerprint of the configuration, used by the solvers that
+     * remember visited configurations without keeping the objects around.
+     * Equal configurations must have equal fingerprints. The default hashes
+     * the string representation, puzzles can override it with something cheaper.
+     * @return the fingerprint of this configuration
+     */
+    default long fingerprint() {
+        String text = toString();
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
     //////////////////////////////////////////////////////////////////////////////////////
     // The predecessor map from the BFS Solver forces to any puzzle configuration       //
     // to override the equals and hashCode methods.                                     //
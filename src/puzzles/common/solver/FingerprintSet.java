@@ -0,0 +1,144 @@
+package puzzles.common.solver;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size visited set that stores only the 64-bit fingerprint of each
+ * configuration together with the BFS depth it was first seen at (hash
+ * compaction, as in SPIN's supertrace mode). Two different configurations
+ * that share a fingerprint are treated as the same one, so a search using
+ * this set may omit states. The chance of that happening is reported by
+ * {@link #omissionProbability()}.
+ */
+public class FingerprintSet {
+    /** bytes used per slot: the fingerprint plus its depth */
+    public static final int BYTES_PER_ENTRY = Long.BYTES + Short.BYTES;
+    /** depth value used to mark a slot as empty */
+    private static final short EMPTY = -1;
+    /** the largest depth that can be recorded */
+    public static final int MAX_DEPTH = Short.MAX_VALUE;
+    /** the table never fills past this fraction, so probing stays short */
+    private static final double MAX_LOAD = 0.9;
+
+    /** the fingerprints, indexed by slot */
+    private final long[] keys;
+    /** the depth of each fingerprint, or EMPTY */
+    private final short[] depths;
+    /** slot index mask, the capacity is a power of two */
+    private final int mask;
+    /** the number of fingerprints that may be stored */
+    private final int limit;
+    /** the number of fingerprints stored */
+    private int size;
+    /** the number of new fingerprints dropped because the table was full */
+    private long overflow;
+
+    /**
+     * Create a set that uses at most the given number of bytes.
+     * @param memoryBytes the memory budget for the table
+     */
+    public FingerprintSet(long memoryBytes) {
+        long slots = Math.max(16, memoryBytes / BYTES_PER_ENTRY);
+        int capacity = (int) Long.highestOneBit(Math.min(slots, 1L << 30));
+        this.keys = new long[capacity];
+        this.depths = new short[capacity];
+        Arrays.fill(depths, EMPTY);
+        this.mask = capacity - 1;
+        this.limit = (int) (capacity * MAX_LOAD);
+    }
+
+    /**
+     * Find the slot holding the fingerprint, or the empty slot where it belongs.
+     * @param key the fingerprint
+     * @return the slot index
+     */
+    private int slot(long key) {
+        int index = (int) (key ^ (key >>> 32)) & mask;
+        while (depths[index] != EMPTY && keys[index] != key) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    /**
+     * Record a fingerprint at the given depth if it hasn't been seen before.
+     * @param key the fingerprint
+     * @param depth the BFS depth it was reached at
+     * @return true if the fingerprint was new and stored; false if it was
+     *         already present or the table is full
+     */
+    public boolean add(long key, int depth) {
+        int index = slot(key);
+        if (depths[index] != EMPTY) {
+            return false;
+        }
+        if (size >= limit) {
+            overflow++;
+            return false;
+        }
+        keys[index] = key;
+        depths[index] = (short) Math.min(depth, MAX_DEPTH);
+        size++;
+        return true;
+    }
+
+    /**
+     * Get the depth recorded for a fingerprint.
+     * @param key the fingerprint
+     * @return the depth, or -1 if the fingerprint isn't stored
+     */
+    public int depth(long key) {
+        return depths[slot(key)];
+    }
+
+    /**
+     * Change the depth recorded for a fingerprint that is already stored.
+     * @param key the fingerprint
+     * @param depth the new depth
+     */
+    public void setDepth(long key, int depth) {
+        int index = slot(key);
+        if (depths[index] != EMPTY) {
+            depths[index] = (short) Math.min(depth, MAX_DEPTH);
+        }
+    }
+
+    /**
+     * The number of fingerprints stored.
+     * @return the size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * The number of slots in the table.
+     * @return the capacity
+     */
+    public int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * The number of new states dropped because the table was full.
+     * @return the overflow count
+     */
+    public long getOverflow() {
+        return overflow;
+    }
+
+    /**
+     * Estimate the probability that at least one state was wrongly treated as
+     * already visited. With n stored fingerprints of 64 bits the chance of any
+     * collision is about n(n-1)/2^65. Dropping states on overflow is a
+     * certain omission.
+     * @return the omission probability, between 0 and 1
+     */
+    public double omissionProbability() {
+        if (overflow > 0) {
+            return 1.0;
+        }
+        double n = size;
+        return Math.min(1.0, n * (n - 1) / Math.pow(2, 65));
+    }
+}
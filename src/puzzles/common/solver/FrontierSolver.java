@@ -0,0 +1,220 @@
+package puzzles.common.solver;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * A memory-lean breadth first solver in the style of Korf's frontier search.
+ * Only the last few BFS layers are kept for duplicate detection, so the peak
+ * memory is proportional to the widest layers rather than to every
+ * configuration ever seen. Without a predecessor map the path is rebuilt by
+ * divide and conquer: a second search records, for each configuration, its
+ * ancestor in the middle layer, and the two halves of the path are then
+ * solved recursively.
+ *
+ * The puzzles' moves aren't always reversible, so a configuration can come
+ * back after it has left the window and be expanded, and counted, again. That
+ * costs time but never makes the path longer. The search gives up once a
+ * layer comes out empty after the window's layers are taken away from it.
+ * Since the next layer only depends on the current layer and the window, the
+ * layers can also cycle without ever emptying. Brent's method catches that
+ * exactly: the window is saved at every power of two layers and compared
+ * with each later one, and a repeat means no goal will ever be reached.
+ */
+public class FrontierSolver extends Solver {
+    /** the default number of previous layers kept for duplicate detection */
+    public static final int DEFAULT_WINDOW = 3;
+    /** no depth limit: search until a solution is found or the layers empty or repeat */
+    public static final int NO_DEPTH_LIMIT = Integer.MAX_VALUE;
+
+    /** the number of previous layers kept for duplicate detection */
+    private final int window;
+    /** the deepest layer searched before giving up */
+    private final int maxDepth;
+    /** the largest number of configurations held at once */
+    private int peakStored;
+
+    /**
+     * The result of a single frontier search.
+     * @param depth the depth the goal was found at
+     * @param relay the goal's ancestor in the requested relay layer
+     */
+    private record Found(int depth, Configuration relay) {}
+
+    /**
+     * Create a solver with the default window and no depth limit.
+     */
+    public FrontierSolver() {
+        this(DEFAULT_WINDOW, NO_DEPTH_LIMIT);
+    }
+
+    /**
+     * Create a solver keeping the given number of previous layers.
+     * @param window the number of previous layers kept, at least 1
+     * @param maxDepth the deepest layer searched before giving up, or
+     *                 {@link #NO_DEPTH_LIMIT}
+     */
+    public FrontierSolver(int window, int maxDepth) {
+        this.window = Math.max(1, window);
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Find the solution depth with one frontier search, then rebuild the path
+     * by divide and conquer.
+     *
+     * @param c The inputted Configuration to find the solution of
+     * @return The fastest possible path to get to the desired solution.
+     */
+    @Override
+    public List<Configuration> solve(Configuration c) {
+        if (provablyUnsolvable(c)) {
+            return new LinkedList<>();
+        }
+        totalConfig = 0;
+        uniqueConfig = 0;
+        peakStored = 0;
+        Found found = search(c, Configuration::isSolution, -1, maxDepth, true);
+        List<Configuration> path = new LinkedList<>();
+        if (found != null) {
+            path.addAll(buildPath(c, Configuration::isSolution, found.depth()));
+        }
+        return path;
+    }
+
+    /**
+     * Rebuild a path of a known length from start to a configuration
+     * satisfying goal.
+     * @param start the first configuration of the path
+     * @param goal the test for the last configuration of the path
+     * @param depth the length of the shortest such path
+     * @return the path, including start
+     */
+    private List<Configuration> buildPath(Configuration start, Predicate<Configuration> goal, int depth) {
+        List<Configuration> path = new ArrayList<>();
+        if (depth == 0) {
+            path.add(start);
+            return path;
+        }
+        if (depth == 1) {
+            path.add(start);
+            for (Configuration nbr : start.getNeighbors()) {
+                totalConfig++;
+                if (goal.test(nbr)) {
+                    path.add(nbr);
+                    return path;
+                }
+            }
+            throw new IllegalStateException("No neighbor reaches the goal");
+        }
+        int middle = depth / 2;
+        Found found = search(start, goal, middle, depth, false);
+        if (found == null) {
+            throw new IllegalStateException("Goal not found again at depth " + depth);
+        }
+        Configuration relay = found.relay();
+        path.addAll(buildPath(start, relay::equals, middle));
+        List<Configuration> rest = buildPath(relay, goal, depth - middle);
+        path.addAll(rest.subList(1, rest.size()));
+        return path;
+    }
+
+    /**
+     * Breadth first search that keeps only the current layer, the next layer
+     * and a window of previous layers. Each configuration in a layer carries
+     * its ancestor in the relay layer. The search ends when a layer comes out
+     * empty or the window repeats one saved by Brent's method.
+     *
+     * @param start the configuration to search from
+     * @param goal the test for a goal configuration
+     * @param relayDepth the layer whose configurations are recorded as relays,
+     *                   or -1 for none
+     * @param limit the deepest layer to search
+     * @param count whether the configurations of each layer are counted as
+     *              unique in this search
+     * @return the goal depth and relay, or null if no goal was found
+     */
+    private Found search(Configuration start, Predicate<Configuration> goal, int relayDepth,
+                         int limit, boolean count) {
+        Deque<Set<Configuration>> previous = new ArrayDeque<>();
+        Map<Configuration, Configuration> layer = new LinkedHashMap<>();
+        layer.put(start, relayDepth == 0 ? start : null);
+        totalConfig++;
+        if (count) {
+            uniqueConfig++;
+        }
+        List<Set<Configuration>> saved = null;
+        int power = 1;
+        int steps = 0;
+        int depth = 0;
+        while (!layer.isEmpty() && depth <= limit) {
+            List<Set<Configuration>> kept = new ArrayList<>(previous.size() + 1);
+            kept.add(layer.keySet());
+            kept.addAll(previous);
+            if (kept.equals(saved)) {
+                return null;
+            }
+            if (++steps == power) {
+                saved = kept;
+                power *= 2;
+                steps = 0;
+            }
+            Map<Configuration, Configuration> next = new LinkedHashMap<>();
+            for (Map.Entry<Configuration, Configuration> entry : layer.entrySet()) {
+                Configuration current = entry.getKey();
+                if (goal.test(current)) {
+                    return new Found(depth, entry.getValue());
+                }
+                if (current.isDeadEnd()) {
+                    continue;
+                }
+                for (Configuration nbr : current.getNeighbors()) {
+                    totalConfig++;
+                    if (layer.containsKey(nbr) || next.containsKey(nbr)
+                            || seen(previous, nbr)) {
+                        continue;
+                    }
+                    next.put(nbr, depth + 1 == relayDepth ? nbr : entry.getValue());
+                }
+            }
+            if (count) {
+                uniqueConfig += next.size();
+            }
+            int stored = layer.size() + next.size();
+            for (Set<Configuration> old : previous) {
+                stored += old.size();
+            }
+            peakStored = Math.max(peakStored, stored);
+            previous.addFirst(layer.keySet());
+            if (previous.size() > window) {
+                previous.removeLast();
+            }
+            layer = next;
+            depth++;
+        }
+        return null;
+    }
+
+    /**
+     * Is the configuration in one of the previous layers?
+     * @param previous the previous layers, most recent first
+     * @param config the configuration to look for
+     * @return true if it was seen in the window
+     */
+    private static boolean seen(Deque<Set<Configuration>> previous, Configuration config) {
+        for (Set<Configuration> old : previous) {
+            if (old.contains(config)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The largest number of configurations held at once during the last solve.
+     * @return the peak number of stored configurations
+     */
+    public int getPeakStored() {
+        return peakStored;
+    }
+}
@@ -0,0 +1,320 @@
+package puzzles.common.solver;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A hash distributed parallel A* solver (HDA*). The configurations are split
+ * between the worker threads by their fingerprint, and each worker owns its
+ * share outright: its own open queue, ordered like {@link AStarSolver}'s, and
+ * its own map of the best g and predecessor of every configuration it has
+ * seen. A generated child is sent to its owner through the owner's lock-free
+ * inbox, so the workers never share a data structure that needs a lock.
+ *
+ * A solution found by any worker becomes the incumbent, and only queued
+ * configurations whose f is below the incumbent's cost are expanded after
+ * that. A single counter holds every piece of unfinished work, the messages
+ * on their way and the configurations still open, and a child is counted
+ * before its parent is let go, so the counter only reaches zero once nothing
+ * left could give a shorter path. With an admissible heuristic the path is
+ * then as short as the BFS Solver's. Idle workers park until a message is
+ * sent to them or the search ends.
+ */
+public class HdaStarSolver extends Solver {
+    /** the heuristic guiding the search */
+    private final Heuristic heuristic;
+    /** the number of worker threads */
+    private final int threads;
+
+    /**
+     * A configuration sent to its owner.
+     * @param config the configuration
+     * @param g the number of moves from the start
+     * @param parent the configuration it was generated from, or null
+     */
+    private record Message(Configuration config, int g, Configuration parent) {}
+
+    /**
+     * A queued configuration.
+     * @param config the configuration
+     * @param g the number of moves from the start
+     * @param f g plus the heuristic estimate
+     * @param order the generation order within the worker, for breaking ties
+     */
+    private record Node(Configuration config, int g, int f, long order) {}
+
+    /**
+     * What a worker knows about a configuration it owns.
+     * @param g the smallest number of moves from the start found so far
+     * @param parent the configuration it was reached from with that g
+     */
+    private record Seen(int g, Configuration parent) {}
+
+    /**
+     * Create a solver with one worker per available processor.
+     * @param heuristic the heuristic guiding the search
+     */
+    public HdaStarSolver(Heuristic heuristic) {
+        this(heuristic, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create a solver.
+     * @param heuristic the heuristic guiding the search
+     * @param threads the number of worker threads
+     */
+    public HdaStarSolver(Heuristic heuristic, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one worker thread is needed");
+        }
+        this.heuristic = heuristic;
+        this.threads = threads;
+    }
+
+    /**
+     * Search with all the workers, then follow the predecessors back from the
+     * incumbent solution through the maps of their owners.
+     *
+     * @param c The inputted Configuration to find the solution of
+     * @return The fastest possible path to get to the desired solution.
+     */
+    @Override
+    public List<Configuration> solve(Configuration c) {
+        if (provablyUnsolvable(c)) {
+            return new LinkedList<>();
+        }
+        Search search = new Search();
+        Thread[] running = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            Worker worker = search.workers[i];
+            running[i] = new Thread(() -> search.run(worker), "hda-worker-" + i);
+            worker.thread = running[i];
+        }
+        search.send(new Message(c, 0, null));
+        for (Thread thread : running) {
+            thread.start();
+        }
+        try {
+            for (Thread thread : running) {
+                thread.join();
+            }
+        }
+        catch (InterruptedException e) {
+            search.stop();
+            Thread.currentThread().interrupt();
+            return new LinkedList<>();
+        }
+        if (search.failure.get() != null) {
+            throw new IllegalStateException("A search worker failed", search.failure.get());
+        }
+        int total = 1;
+        int unique = 0;
+        for (Worker worker : search.workers) {
+            total += worker.generated;
+            unique += worker.seen.size();
+        }
+        totalConfig = total;
+        uniqueConfig = unique;
+        List<Configuration> path = new LinkedList<>();
+        Node end = search.incumbent.get();
+        for (Configuration curr = end == null ? null : end.config(); curr != null;
+             curr = search.workers[search.owner(curr)].seen.get(curr).parent()) {
+            path.add(0, curr);
+        }
+        return path;
+    }
+
+    /**
+     * The state of one worker. Only the worker's own thread touches anything
+     * but the inbox until the search is over.
+     */
+    private static class Worker {
+        /** the thread running this worker, unparked when a message arrives */
+        private Thread thread;
+        /** configurations sent to this worker by any thread */
+        private final Queue<Message> inbox = new ConcurrentLinkedQueue<>();
+        /** the configurations waiting to be expanded */
+        private final PriorityQueue<Node> open = new PriorityQueue<>(
+                Comparator.comparingInt(Node::f).thenComparingLong(Node::order));
+        /** every configuration this worker owns that has been reached */
+        private final Map<Configuration, Seen> seen = new HashMap<>();
+        /** the next generation order */
+        private long order;
+        /** the number of configurations this worker generated */
+        private int generated;
+    }
+
+    /**
+     * The state shared by the workers of one solve.
+     */
+    private class Search {
+        /** the workers, indexed by the partition they own */
+        private final Worker[] workers = new Worker[threads];
+        /** the best solution found so far, the incumbent */
+        private final AtomicReference<Node> incumbent = new AtomicReference<>();
+        /** the number of messages in flight plus configurations still open */
+        private final AtomicLong work = new AtomicLong();
+        /** the first exception thrown by a worker */
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        /** set once the search is over */
+        private volatile boolean done;
+
+        /**
+         * Create the workers.
+         */
+        private Search() {
+            for (int i = 0; i < threads; i++) {
+                workers[i] = new Worker();
+            }
+        }
+
+        /**
+         * The worker that owns a configuration.
+         * @param config the configuration
+         * @return the index of its owner
+         */
+        private int owner(Configuration config) {
+            long key = config.fingerprint();
+            return (int) Long.remainderUnsigned(key ^ (key >>> 32), threads);
+        }
+
+        /**
+         * The cost of the incumbent, only configurations with a smaller f are
+         * worth expanding.
+         * @return the cost, or Integer.MAX_VALUE before a solution is found
+         */
+        private int bound() {
+            Node best = incumbent.get();
+            return best == null ? Integer.MAX_VALUE : best.g();
+        }
+
+        /**
+         * Send a configuration to its owner and wake it. The message is
+         * counted before it is queued so the search can't look finished while
+         * it is on its way.
+         * @param message the configuration and how it was reached
+         */
+        private void send(Message message) {
+            work.incrementAndGet();
+            Worker owner = workers[owner(message.config())];
+            owner.inbox.add(message);
+            LockSupport.unpark(owner.thread);
+        }
+
+        /**
+         * Let go of finished work, ending the search if none is left.
+         * @param count the number of messages or open configurations finished
+         */
+        private void finish(long count) {
+            if (count > 0 && work.addAndGet(-count) == 0) {
+                stop();
+            }
+        }
+
+        /**
+         * End the search and wake every parked worker so it can see that.
+         */
+        private void stop() {
+            done = true;
+            for (Worker worker : workers) {
+                LockSupport.unpark(worker.thread);
+            }
+        }
+
+        /**
+         * The loop of a worker thread: take in messages, expand the best open
+         * configuration if it could still beat the incumbent, and otherwise
+         * drop what can't and park until a message arrives or the search ends.
+         * @param worker the worker this thread runs
+         */
+        private void run(Worker worker) {
+            try {
+                while (!done) {
+                    receive(worker);
+                    Node best = worker.open.peek();
+                    if (best != null && best.f() < bound()) {
+                        expand(worker, worker.open.remove());
+                    }
+                    else {
+                        // the bound only shrinks, so nothing left open can beat it
+                        int pruned = worker.open.size();
+                        worker.open.clear();
+                        finish(pruned);
+                        if (worker.inbox.isEmpty() && !done) {
+                            LockSupport.park(this);
+                        }
+                    }
+                }
+            }
+            catch (RuntimeException | Error e) {
+                failure.compareAndSet(null, e);
+                stop();
+            }
+        }
+
+        /**
+         * Take in every message in a worker's inbox, keeping the ones that
+         * reach a configuration with a smaller g than before. An opened
+         * message stays counted as open work, the rest are finished. Dead
+         * ends are remembered but never opened.
+         * @param worker the receiving worker
+         */
+        private void receive(Worker worker) {
+            long dropped = 0;
+            Message message;
+            while ((message = worker.inbox.poll()) != null) {
+                boolean opened = false;
+                Seen known = worker.seen.get(message.config());
+                if (known == null || message.g() < known.g()) {
+                    if (message.config().isDeadEnd()) {
+                        worker.seen.put(message.config(), new Seen(message.g(), message.parent()));
+                    }
+                    else {
+                        int estimate = heuristic.estimate(message.config());
+                        if (estimate != Heuristic.UNREACHABLE) {
+                            worker.seen.put(message.config(), new Seen(message.g(), message.parent()));
+                            worker.open.add(new Node(message.config(), message.g(),
+                                    message.g() + estimate, worker.order++));
+                            opened = true;
+                        }
+                    }
+                }
+                if (!opened) {
+                    dropped++;
+                }
+            }
+            finish(dropped);
+        }
+
+        /**
+         * Expand a configuration, or record it as the incumbent if it is a
+         * solution that beats the current one. Its children are sent before
+         * it is finished.
+         * @param worker the owning worker
+         * @param node the configuration to expand
+         */
+        private void expand(Worker worker, Node node) {
+            if (node.g() > worker.seen.get(node.config()).g()) {
+                finish(1);
+                return;
+            }
+            if (node.config().isSolution()) {
+                Node current = incumbent.get();
+                while ((current == null || node.g() < current.g())
+                        && !incumbent.compareAndSet(current, node)) {
+                    current = incumbent.get();
+                }
+                finish(1);
+                return;
+            }
+            for (Configuration nbr : node.config().getNeighbors()) {
+                worker.generated++;
+                send(new Message(nbr, node.g() + 1, node.config()));
+            }
+            finish(1);
+        }
+    }
+}
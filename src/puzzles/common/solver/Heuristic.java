@@ -0,0 +1,22 @@
+package puzzles.common.solver;
+
+/**
+ * An estimate of the number of moves left from a configuration to a solution,
+ * used by the informed solvers. An admissible heuristic never overestimates,
+ * which is what keeps {@link AStarSolver}'s paths shortest.
+ */
+@FunctionalInterface
+public interface Heuristic {
+    /** the estimate for a configuration that can't reach any solution */
+    int UNREACHABLE = Integer.MAX_VALUE;
+
+    /** the heuristic that knows nothing, which turns A* into a plain BFS */
+    Heuristic ZERO = config -> 0;
+
+    /**
+     * Estimate the number of moves from a configuration to a solution.
+     * @param config the configuration
+     * @return the estimate, or {@link #UNREACHABLE} if no solution can be reached
+     */
+    int estimate(Configuration config);
+}
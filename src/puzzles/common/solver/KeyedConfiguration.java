@@ -0,0 +1,36 @@
+package puzzles.common.solver;
+
+/**
+ * A configuration that can work out the fingerprints of its neighbors without
+ * building them. Most of the neighbors a search generates have been seen
+ * before, so a solver can check the fingerprints against what it has visited
+ * first and only build the neighbors that are new, which saves copying a
+ * board and allocating a configuration for every duplicate.
+ *
+ * The moves are numbered from 0 to {@link #moveCount()} - 1, in the same
+ * order {@link #getNeighbors()} generates them. A legal move's fingerprint
+ * must be exactly the {@link #fingerprint()} of the configuration
+ * {@link #child(int)} builds for it.
+ */
+public interface KeyedConfiguration extends Configuration {
+    /**
+     * The number of moves, legal or not, at most 32.
+     * @return the number of moves
+     */
+    int moveCount();
+
+    /**
+     * Work out the fingerprint of the neighbor every legal move leads to.
+     * @param keys filled in with the fingerprint of each legal move, indexed
+     *             by move; it must have room for {@link #moveCount()} entries
+     * @return a bit mask with bit m set if move m is legal
+     */
+    int childKeys(long[] keys);
+
+    /**
+     * Build the neighbor a legal move leads to.
+     * @param move the number of the move
+     * @return the neighbor
+     */
+    Configuration child(int move);
+}
@@ -0,0 +1,21 @@
+package puzzles.common.solver;
+
+import java.util.List;
+
+/**
+ * Told about the progress of a search one layer at a time: the layer at depth
+ * d holds the configurations first reached in d moves that are still to be
+ * expanded.
+ */
+@FunctionalInterface
+public interface LayerListener {
+    /**
+     * Called once every configuration of a layer has been generated.
+     * @param depth the number of moves from the start to the layer
+     * @param layer the configurations of the layer, a read only view that is
+     *              only valid during the call
+     * @param generated the number of configurations generated so far
+     * @param unique the number of distinct configurations seen so far
+     */
+    void layerCompleted(int depth, List<Configuration> layer, int generated, int unique);
+}
@@ -0,0 +1,190 @@
+package puzzles.common.solver;
+
+import java.util.*;
+
+/**
+ * Finds shortest paths from many start configurations of the same board in a
+ * single pass. The graph reachable from all of the starts is explored once,
+ * with every configuration reached from more than one start stored and
+ * expanded only once, and every move is recorded backwards. A BFS from all of
+ * the solutions at once over the reversed moves then gives every explored
+ * configuration its distance to the nearest solution and the next step
+ * towards it, so the path from each start is read off by following the steps.
+ *
+ * Solutions and dead ends are not expanded, like in the BFS {@link Solver}.
+ */
+public class MultiSourceSolver extends Solver {
+    /** the id of every configuration explored by the last solve */
+    private Map<Configuration, Integer> ids;
+    /** the distance to the nearest solution of each id, -1 if there is none */
+    private int[] distance;
+
+    /**
+     * Solve a single start.
+     *
+     * @param c The inputted Configuration to find the solution of
+     * @return The fastest possible path to get to the desired solution.
+     */
+    @Override
+    public List<Configuration> solve(Configuration c) {
+        return solveAll(List.of(c)).get(c);
+    }
+
+    /**
+     * Find a shortest path from each of the starts.
+     * @param starts the start configurations
+     * @return the path from each start, in the order the starts were given,
+     *         empty for a start that can't reach a solution
+     */
+    public Map<Configuration, List<Configuration>> solveAll(Collection<? extends Configuration> starts) {
+        ids = new HashMap<>();
+        List<Configuration> configs = new ArrayList<>();
+        IntList edgeFrom = new IntList();
+        IntList edgeTo = new IntList();
+        List<Integer> goals = new ArrayList<>();
+        int total = 0;
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (Configuration start : starts) {
+            if (!start.isUnsolvable() && !ids.containsKey(start)) {
+                total++;
+                ids.put(start, configs.size());
+                queue.add(configs.size());
+                configs.add(start);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int id = queue.remove();
+            Configuration current = configs.get(id);
+            if (current.isSolution()) {
+                goals.add(id);
+                continue;
+            }
+            for (Configuration nbr : current.getNeighbors()) {
+                total++;
+                Integer known = ids.get(nbr);
+                if (known == null) {
+                    known = configs.size();
+                    ids.put(nbr, known);
+                    configs.add(nbr);
+                    if (!nbr.isDeadEnd()) {
+                        queue.add(known);
+                    }
+                }
+                if (known != id) {
+                    edgeFrom.add(id);
+                    edgeTo.add(known);
+                }
+            }
+        }
+        int[] next = backwardSearch(configs.size(), edgeFrom, edgeTo, goals);
+        totalConfig = total;
+        uniqueConfig = configs.size();
+        Map<Configuration, List<Configuration>> paths = new LinkedHashMap<>();
+        for (Configuration start : starts) {
+            List<Configuration> path = new LinkedList<>();
+            Integer id = ids.get(start);
+            if (id != null && distance[id] >= 0) {
+                for (int step = id; step >= 0; step = next[step]) {
+                    path.add(configs.get(step));
+                }
+            }
+            paths.put(start, path);
+        }
+        return paths;
+    }
+
+    /**
+     * BFS from every solution at once over the reversed moves. Fills in the
+     * distances and returns the next step from each configuration.
+     * @param count the number of configurations
+     * @param edgeFrom the configuration each move starts from
+     * @param edgeTo the configuration each move leads to
+     * @param goals the solutions that were found
+     * @return the id of the next step towards the nearest solution, or -1 for
+     *         a solution or a configuration that can't reach one
+     */
+    private int[] backwardSearch(int count, IntList edgeFrom, IntList edgeTo, List<Integer> goals) {
+        int[] start = new int[count + 1];
+        for (int e = 0; e < edgeTo.size(); e++) {
+            start[edgeTo.get(e) + 1]++;
+        }
+        for (int i = 0; i < count; i++) {
+            start[i + 1] += start[i];
+        }
+        int[] fill = Arrays.copyOf(start, count);
+        int[] reversed = new int[edgeTo.size()];
+        for (int e = 0; e < edgeTo.size(); e++) {
+            reversed[fill[edgeTo.get(e)]++] = edgeFrom.get(e);
+        }
+        distance = new int[count];
+        int[] next = new int[count];
+        Arrays.fill(distance, -1);
+        Arrays.fill(next, -1);
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int goal : goals) {
+            distance[goal] = 0;
+            queue.add(goal);
+        }
+        while (!queue.isEmpty()) {
+            int id = queue.remove();
+            for (int e = start[id]; e < start[id + 1]; e++) {
+                int before = reversed[e];
+                if (distance[before] == -1) {
+                    distance[before] = distance[id] + 1;
+                    next[before] = id;
+                    queue.add(before);
+                }
+            }
+        }
+        return next;
+    }
+
+    /**
+     * The number of moves from a configuration explored by the last solve to
+     * the nearest solution.
+     * @param config the configuration
+     * @return the distance, or -1 if it can't reach a solution or wasn't explored
+     */
+    public int distance(Configuration config) {
+        Integer id = ids == null ? null : ids.get(config);
+        return id == null ? -1 : distance[id];
+    }
+
+    /**
+     * A growable list of ints, so the moves aren't boxed.
+     */
+    private static class IntList {
+        /** the values */
+        private int[] values = new int[16];
+        /** the number of values */
+        private int size;
+
+        /**
+         * Add a value to the end.
+         * @param value the value
+         */
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        /**
+         * Get a value.
+         * @param index the index of the value
+         * @return the value
+         */
+        private int get(int index) {
+            return values[index];
+        }
+
+        /**
+         * The number of values.
+         * @return the size
+         */
+        private int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package puzzles.common.solver;
+
+import java.util.*;
+
+/**
+ * A breadth first solver that keeps every visited configuration in an
+ * {@link OffHeapStateStore} instead of a predecessor HashMap. Configurations
+ * get ids in the order they are first reached, which is exactly BFS order, so
+ * the queue is just the range of ids not expanded yet. Only the configuration
+ * being expanded and its neighbors are ever on the heap, which keeps heap use
+ * (and garbage collection pauses) flat no matter how big the search gets.
+ * Dead ends are stored like any other configuration, and their ids are
+ * marked so they are skipped instead of expanded.
+ */
+public class OffHeapSolver extends Solver {
+    /** the codec for the board being solved */
+    private final StateCodec codec;
+    /** the off-heap bytes used by the last solve */
+    private long offHeapBytes;
+
+    /**
+     * Create a solver for boards encoded by the given codec.
+     * @param codec the codec for the puzzle board being solved
+     */
+    public OffHeapSolver(StateCodec codec) {
+        this.codec = codec;
+    }
+
+    /**
+     * Search in BFS order through the store, then follow the parent ids back
+     * from the solution to build the path.
+     *
+     * @param c The inputted Configuration to find the solution of
+     * @return The fastest possible path to get to the desired solution.
+     */
+    @Override
+    public List<Configuration> solve(Configuration c) {
+        if (provablyUnsolvable(c)) {
+            return new LinkedList<>();
+        }
+        OffHeapStateStore store = new OffHeapStateStore(codec);
+        BitSet deadEnds = new BitSet();
+        int total = 1;
+        int end = -1;
+        store.add(c, OffHeapStateStore.NO_PARENT);
+        for (int head = 0; head < store.size(); head++) {
+            if (deadEnds.get(head)) {
+                continue;
+            }
+            Configuration current = head == 0 ? c : store.get(head);
+            if (current.isSolution()) {
+                end = head;
+                break;
+            }
+            for (Configuration nbr : current.getNeighbors()) {
+                total++;
+                int id = store.add(nbr, head);
+                if (id >= 0 && nbr.isDeadEnd()) {
+                    deadEnds.set(id);
+                }
+            }
+        }
+        totalConfig = total;
+        uniqueConfig = store.size();
+        offHeapBytes = store.offHeapBytes();
+        List<Configuration> path = new LinkedList<>();
+        for (int id = end; id > 0; id = store.parent(id)) {
+            path.add(0, store.get(id));
+        }
+        if (end >= 0) {
+            path.add(0, c);
+        }
+        return path;
+    }
+
+    /**
+     * The number of off-heap bytes the last solve allocated.
+     * @return the off-heap bytes
+     */
+    public long getOffHeapBytes() {
+        return offHeapBytes;
+    }
+}
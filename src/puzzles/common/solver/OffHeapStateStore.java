@@ -0,0 +1,214 @@
+package puzzles.common.solver;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An append-only store of encoded configurations that lives outside the Java
+ * heap. Each record holds the id of its parent followed by the encoded
+ * configuration, and records are packed into large direct buffers (slabs).
+ * An open-addressing hash index, also off heap, maps encoded configurations
+ * to their ids, so a solver only ever holds int handles on the heap.
+ */
+public class OffHeapStateStore {
+    /** the default size of one slab, 64 MB */
+    public static final int DEFAULT_SLAB_BYTES = 64 * 1024 * 1024;
+    /** the parent id of a configuration without a parent */
+    public static final int NO_PARENT = -1;
+    /** the index is grown once it is this full */
+    private static final double MAX_LOAD = 0.5;
+
+    /** the codec used to encode and decode configurations */
+    private final StateCodec codec;
+    /** the encoded size of one configuration */
+    private final int encodedSize;
+    /** the size of one record: parent id and encoded configuration */
+    private final int recordSize;
+    /** the number of records in one slab */
+    private final int recordsPerSlab;
+    /** the slabs holding the records */
+    private final List<ByteBuffer> slabs = new ArrayList<>();
+    /** scratch buffer a configuration is encoded into before it is looked up */
+    private final ByteBuffer scratch;
+    /** the hash index, each slot holds an id plus one, or 0 if empty */
+    private ByteBuffer index;
+    /** the number of slots in the index */
+    private int indexCapacity;
+    /** the number of records stored */
+    private int size;
+
+    /**
+     * Create an empty store with the default slab size.
+     * @param codec the codec for the puzzle board being solved
+     */
+    public OffHeapStateStore(StateCodec codec) {
+        this(codec, DEFAULT_SLAB_BYTES);
+    }
+
+    /**
+     * Create an empty store.
+     * @param codec the codec for the puzzle board being solved
+     * @param slabBytes the size of each slab in bytes
+     */
+    public OffHeapStateStore(StateCodec codec, int slabBytes) {
+        this.codec = codec;
+        this.encodedSize = codec.encodedSize();
+        this.recordSize = Integer.BYTES + encodedSize;
+        this.recordsPerSlab = Math.max(1, slabBytes / recordSize);
+        this.scratch = ByteBuffer.allocateDirect(encodedSize).order(ByteOrder.nativeOrder());
+        allocateIndex(1024);
+    }
+
+    /**
+     * Replace the index with an empty one of the given capacity.
+     * @param capacity the number of slots, a power of two
+     */
+    private void allocateIndex(int capacity) {
+        indexCapacity = capacity;
+        index = ByteBuffer.allocateDirect(capacity * Integer.BYTES).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Add a configuration unless an equal one is already stored.
+     * @param config the configuration
+     * @param parent the id of the configuration it was reached from, or
+     *               {@link #NO_PARENT}
+     * @return the id of the new record, or -1 if it was already stored
+     */
+    public int add(Configuration config, int parent) {
+        scratch.clear();
+        codec.encode(config, scratch);
+        int hash = hashScratch();
+        int mask = indexCapacity - 1;
+        int slot = hash & mask;
+        int entry;
+        while ((entry = index.getInt(slot * Integer.BYTES)) != 0) {
+            if (matchesScratch(entry - 1)) {
+                return -1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int id = size;
+        if (id / recordsPerSlab == slabs.size()) {
+            slabs.add(ByteBuffer.allocateDirect(recordsPerSlab * recordSize).order(ByteOrder.nativeOrder()));
+        }
+        ByteBuffer slab = slabs.get(id / recordsPerSlab);
+        int offset = (id % recordsPerSlab) * recordSize;
+        slab.putInt(offset, parent);
+        for (int i = 0; i < encodedSize; i++) {
+            slab.put(offset + Integer.BYTES + i, scratch.get(i));
+        }
+        index.putInt(slot * Integer.BYTES, id + 1);
+        size++;
+        if (size > indexCapacity * MAX_LOAD) {
+            rehash(indexCapacity * 2);
+        }
+        return id;
+    }
+
+    /**
+     * Rebuild the index with a larger capacity.
+     * @param capacity the new number of slots
+     */
+    private void rehash(int capacity) {
+        allocateIndex(capacity);
+        int mask = capacity - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hashRecord(id) & mask;
+            while (index.getInt(slot * Integer.BYTES) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            index.putInt(slot * Integer.BYTES, id + 1);
+        }
+    }
+
+    /**
+     * Decode the configuration stored under an id.
+     * @param id the id of the record
+     * @return the configuration
+     */
+    public Configuration get(int id) {
+        ByteBuffer record = slabs.get(id / recordsPerSlab).duplicate().order(ByteOrder.nativeOrder());
+        record.position((id % recordsPerSlab) * recordSize + Integer.BYTES);
+        return codec.decode(record);
+    }
+
+    /**
+     * The id of the configuration a record was reached from.
+     * @param id the id of the record
+     * @return the parent id, or {@link #NO_PARENT}
+     */
+    public int parent(int id) {
+        return slabs.get(id / recordsPerSlab).getInt((id % recordsPerSlab) * recordSize);
+    }
+
+    /**
+     * The number of configurations stored.
+     * @return the size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * The number of off-heap bytes allocated for records and the index.
+     * @return the allocated bytes
+     */
+    public long offHeapBytes() {
+        return (long) slabs.size() * recordsPerSlab * recordSize + (long) indexCapacity * Integer.BYTES;
+    }
+
+    /**
+     * Is the stored record equal to the configuration in the scratch buffer?
+     * @param id the id of the record
+     * @return true if the encoded bytes are the same
+     */
+    private boolean matchesScratch(int id) {
+        ByteBuffer slab = slabs.get(id / recordsPerSlab);
+        int offset = (id % recordsPerSlab) * recordSize + Integer.BYTES;
+        for (int i = 0; i < encodedSize; i++) {
+            if (slab.get(offset + i) != scratch.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Hash the configuration in the scratch buffer.
+     * @return the hash
+     */
+    private int hashScratch() {
+        return hash(scratch, 0);
+    }
+
+    /**
+     * Hash a stored record.
+     * @param id the id of the record
+     * @return the hash
+     */
+    private int hashRecord(int id) {
+        return hash(slabs.get(id / recordsPerSlab), (id % recordsPerSlab) * recordSize + Integer.BYTES);
+    }
+
+    /**
+     * FNV-1a hash of an encoded configuration, with a final mix so the low
+     * bits used by the index are well spread.
+     * @param buffer the buffer holding the bytes
+     * @param offset the offset of the first byte
+     * @return the hash
+     */
+    private int hash(ByteBuffer buffer, int offset) {
+        int h = 0x811c9dc5;
+        for (int i = 0; i < encodedSize; i++) {
+            h ^= buffer.get(offset + i);
+            h *= 0x01000193;
+        }
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        return h;
+    }
+}
@@ -0,0 +1,165 @@
+package puzzles.common.solver;
+
+import java.util.*;
+
+/**
+ * A breadth first solver for very large searches that trades exactness for
+ * memory. Instead of a predecessor map it only remembers a 64-bit fingerprint
+ * and the depth of each visited configuration in a {@link FingerprintSet} of
+ * a fixed size. Once a solution is found, the path is recovered by a guided
+ * re-search from the start that only follows configurations whose recorded
+ * depth is one more than their parent's.
+ *
+ * A fingerprint collision can make the search skip a configuration, so a
+ * solvable puzzle may be reported as unsolvable (or with a longer path). The
+ * estimated chance of that is available from {@link #getOmissionProbability()}.
+ * For a {@link KeyedConfiguration}, neighbors are only built once their
+ * fingerprint turns out to be new.
+ */
+public class ProbabilisticSolver extends Solver {
+    /** the default memory budget for the visited set, 64 MB */
+    public static final long DEFAULT_MEMORY = 64L * 1024 * 1024;
+
+    /** the memory budget for the visited set */
+    private final long memoryBytes;
+    /** the visited set of the last solve */
+    private FingerprintSet visited;
+
+    /**
+     * Create a solver using the default memory budget.
+     */
+    public ProbabilisticSolver() {
+        this(DEFAULT_MEMORY);
+    }
+
+    /**
+     * Create a solver using the given memory budget for its visited set.
+     * @param memoryBytes the number of bytes the visited set may use
+     */
+    public ProbabilisticSolver(long memoryBytes) {
+        this.memoryBytes = memoryBytes;
+    }
+
+    /**
+     * Search layer by layer from the start configuration, storing only the
+     * fingerprints of visited configurations. When a solution is dequeued the
+     * path to it is rebuilt by {@link #recoverPath}.
+     *
+     * @param c The inputted Configuration to find the solution of
+     * @return The shortest path found, or an empty list if there is none
+     */
+    @Override
+    public List<Configuration> solve(Configuration c) {
+        if (provablyUnsolvable(c)) {
+            return new LinkedList<>();
+        }
+        visited = new FingerprintSet(memoryBytes);
+        int total = 1;
+        int depth = 0;
+        int solutionDepth = -1;
+        visited.add(c.fingerprint(), 0);
+        List<Configuration> layer = new ArrayList<>();
+        layer.add(c);
+        while (!layer.isEmpty() && solutionDepth < 0 && depth < FingerprintSet.MAX_DEPTH - 1) {
+            announceLayer(depth, layer, total, visited.size());
+            List<Configuration> next = new ArrayList<>();
+            for (Configuration current : layer) {
+                if (current.isSolution()) {
+                    solutionDepth = depth;
+                    break;
+                }
+                if (current instanceof KeyedConfiguration keyed) {
+                    long[] keys = new long[keyed.moveCount()];
+                    int legal = keyed.childKeys(keys);
+                    for (int move = 0; move < keys.length; move++) {
+                        if ((legal & (1 << move)) == 0 || isEarlierSibling(keys, legal, move)) {
+                            continue;
+                        }
+                        total++;
+                        if (visited.add(keys[move], depth + 1)) {
+                            Configuration nbr = keyed.child(move);
+                            if (!nbr.isDeadEnd()) {
+                                next.add(nbr);
+                            }
+                        }
+                    }
+                    continue;
+                }
+                for (Configuration nbr : current.getNeighbors()) {
+                    total++;
+                    if (visited.add(nbr.fingerprint(), depth + 1) && !nbr.isDeadEnd()) {
+                        next.add(nbr);
+                    }
+                }
+            }
+            layer = next;
+            depth++;
+        }
+        totalConfig = total;
+        uniqueConfig = visited.size();
+        List<Configuration> path = new LinkedList<>();
+        if (solutionDepth >= 0) {
+            recoverPath(c, 0, solutionDepth, path);
+        }
+        return path;
+    }
+
+    /**
+     * Depth first re-search that only steps into neighbors recorded one layer
+     * deeper than the current configuration, so it walks the BFS layers back
+     * down to a solution. Configurations that turn out not to lead to a
+     * solution are marked so they are never explored twice.
+     *
+     * @param current the configuration being explored
+     * @param depth the BFS depth of current
+     * @param solutionDepth the depth the solution was found at
+     * @param path the path so far, completed in place on success
+     * @return true if a solution was reached from current
+     */
+    private boolean recoverPath(Configuration current, int depth, int solutionDepth,
+                                List<Configuration> path) {
+        path.add(current);
+        if (depth == solutionDepth) {
+            if (current.isSolution()) {
+                return true;
+            }
+        }
+        else {
+            for (Configuration nbr : current.getNeighbors()) {
+                long key = nbr.fingerprint();
+                if (visited.depth(key) == depth + 1 && recoverPath(nbr, depth + 1, solutionDepth, path)) {
+                    return true;
+                }
+            }
+        }
+        visited.setDepth(current.fingerprint(), FingerprintSet.MAX_DEPTH);
+        path.remove(path.size() - 1);
+        return false;
+    }
+
+    /**
+     * The estimated probability that the last solve skipped a configuration
+     * because of a fingerprint collision or a full visited set.
+     * @return the omission probability, between 0 and 1
+     */
+    public double getOmissionProbability() {
+        return visited == null ? 0.0 : visited.omissionProbability();
+    }
+
+    /**
+     * Does an earlier legal move lead to the same fingerprint? getNeighbors
+     * returns a set, so a neighbor reached by two moves only counts once.
+     * @param keys the fingerprint of each legal move
+     * @param legal the bit mask of legal moves
+     * @param move the move to check
+     * @return true if an earlier move has the same fingerprint
+     */
+    private static boolean isEarlierSibling(long[] keys, int legal, int move) {
+        for (int earlier = 0; earlier < move; earlier++) {
+            if ((legal & (1 << earlier)) != 0 && keys[earlier] == keys[move]) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
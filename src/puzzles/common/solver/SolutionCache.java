@@ -0,0 +1,143 @@
+package puzzles.common.solver;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Shortest solution paths of one board, shared by everything playing it.
+ * Every suffix of a shortest path is a shortest path from where it starts,
+ * so one search answers the hints of every configuration along its path. A
+ * configuration being searched from is only searched once at a time: other
+ * threads asking for the same one wait for that search instead of running
+ * their own. They only wait for a search that has started, though. One
+ * still queued for a CPU, such as a speculative solve behind other batch
+ * work, could keep a hint waiting for as long as the queue, so a thread
+ * that finds one runs its own search instead.
+ *
+ * The cached paths are shared, so their configurations must not be changed
+ * by whoever gets them.
+ */
+public class SolutionCache {
+    /** the shortest path from every configuration solved so far */
+    private final Map<Configuration, List<Configuration>> paths = new ConcurrentHashMap<>();
+    /** the searches running, by the configuration they start from */
+    private final Map<Configuration, Running> running = new ConcurrentHashMap<>();
+
+    /**
+     * Finds the shortest path from a configuration on the calling thread.
+     */
+    @FunctionalInterface
+    public interface Search {
+        /**
+         * Find the shortest path.
+         * @param started to be run once the search has stopped waiting for
+         *                its turn and is actually searching
+         * @return the path, empty if there is no solution
+         */
+        List<Configuration> search(Runnable started);
+    }
+
+    /**
+     * A search other threads can wait for.
+     * @param task the search
+     * @param started whether the search has got its turn
+     */
+    private record Running(FutureTask<List<Configuration>> task, AtomicBoolean started) {}
+
+    /**
+     * The cached shortest path from a configuration.
+     * @param config the configuration
+     * @return the path, empty if there is no solution, or null if it isn't known
+     */
+    public List<Configuration> get(Configuration config) {
+        return paths.get(config);
+    }
+
+    /**
+     * Cache a shortest path, along with every suffix of it.
+     * @param start the configuration the path starts from
+     * @param path the path, empty if there is no solution
+     */
+    public void put(Configuration start, List<Configuration> path) {
+        if (path.isEmpty()) {
+            paths.putIfAbsent(start, List.of());
+            return;
+        }
+        List<Configuration> shared = List.copyOf(path);
+        for (int i = 0; i < shared.size(); i++) {
+            paths.putIfAbsent(shared.get(i), shared.subList(i, shared.size()));
+        }
+    }
+
+    /**
+     * Get the shortest path from a configuration, searching for it if it
+     * isn't cached. If another thread is already searching from the same
+     * configuration this waits for its result. If that search is cancelled
+     * or fails, or hasn't started yet, this runs the search itself.
+     * @param start the configuration
+     * @param search finds the shortest path from start on the calling thread
+     * @return the path, empty if there is no solution
+     * @throws CancellationException if the calling thread is interrupted
+     */
+    public List<Configuration> solve(Configuration start, Search search) {
+        while (true) {
+            List<Configuration> known = paths.get(start);
+            if (known != null) {
+                return known;
+            }
+            AtomicBoolean started = new AtomicBoolean();
+            FutureTask<List<Configuration>> task = new FutureTask<>(() -> search.search(() -> started.set(true)));
+            Running mine = new Running(task, started);
+            Running other = running.putIfAbsent(start, mine);
+            if (other != null && !other.started().get()) {
+                List<Configuration> path = search.search(() -> {});
+                put(start, path);
+                return path;
+            }
+            if (other == null) {
+                try {
+                    task.run();
+                    List<Configuration> path = task.get();
+                    put(start, path);
+                    return path;
+                }
+                catch (InterruptedException e) {
+                    throw new CancellationException("Search cancelled");
+                }
+                catch (ExecutionException e) {
+                    if (e.getCause() instanceof RuntimeException failure) {
+                        throw failure;
+                    }
+                    throw new IllegalStateException("The search failed", e.getCause());
+                }
+                finally {
+                    running.remove(start, mine);
+                }
+            }
+            try {
+                return other.task().get();
+            }
+            catch (InterruptedException e) {
+                throw new CancellationException("Search cancelled");
+            }
+            catch (ExecutionException | CancellationException e) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException("Search cancelled");
+                }
+            }
+        }
+    }
+
+    /**
+     * The number of configurations with a cached path.
+     * @return the size of the cache
+     */
+    public int size() {
+        return paths.size();
+    }
+}
@@ -0,0 +1,29 @@
+package puzzles.common.solver;
+
+import java.util.List;
+
+/**
+ * Something a {@link SolvePublisher} reports about a running solve: a layer
+ * of the search that was completed, or the final result.
+ */
+public sealed interface SolveEvent permits SolveEvent.Layer, SolveEvent.Solved {
+    /**
+     * A layer of the search was generated in full.
+     * @param depth the number of moves from the start to the layer
+     * @param size the number of configurations in the layer
+     * @param generated the number of configurations generated so far
+     * @param unique the number of distinct configurations seen so far
+     * @param configurations the configurations of the layer, or an empty list
+     *                       if the publisher wasn't asked to include them
+     */
+    record Layer(int depth, int size, int generated, int unique,
+                 List<Configuration> configurations) implements SolveEvent {}
+
+    /**
+     * The solve is over.
+     * @param path the path found, empty if there is no solution
+     * @param generated the number of configurations generated
+     * @param unique the number of distinct configurations seen
+     */
+    record Solved(List<Configuration> path, int generated, int unique) implements SolveEvent {}
+}
@@ -0,0 +1,191 @@
+package puzzles.common.solver;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.function.Supplier;
+
+/**
+ * A {@link Flow.Publisher} view of a solve. Every subscriber gets its own
+ * solve of the same start configuration, run on the publisher's executor,
+ * and is sent a {@link SolveEvent.Layer} for each layer of the search as it
+ * is completed, then a {@link SolveEvent.Solved} with the path, then
+ * onComplete.
+ *
+ * Events are only sent as the subscriber requests them. The solve waits at
+ * the end of a layer until there is demand for it, so a slow subscriber
+ * slows the search down instead of making events pile up, and cancelling
+ * stops the search at the next layer.
+ */
+public class SolvePublisher implements Flow.Publisher<SolveEvent> {
+    /** makes the solver for each subscriber */
+    private final Supplier<? extends Solver> solvers;
+    /** the configuration every solve starts from */
+    private final Configuration start;
+    /** whether layer events carry the configurations of the layer */
+    private final boolean includeConfigurations;
+    /** runs the solves */
+    private final Executor executor;
+
+    /**
+     * Create a publisher of BFS solves that runs each one on a new daemon thread.
+     * @param start the configuration to solve
+     * @param includeConfigurations whether layer events carry the
+     *                              configurations of the layer
+     */
+    public SolvePublisher(Configuration start, boolean includeConfigurations) {
+        this(Solver::new, start, includeConfigurations, task -> {
+            Thread thread = new Thread(task, "solve-publisher");
+            thread.setDaemon(true);
+            thread.start();
+        });
+    }
+
+    /**
+     * Create a publisher.
+     * @param solvers makes a new solver for each subscriber
+     * @param start the configuration to solve
+     * @param includeConfigurations whether layer events carry the
+     *                              configurations of the layer
+     * @param executor runs the solves
+     */
+    public SolvePublisher(Supplier<? extends Solver> solvers, Configuration start,
+                          boolean includeConfigurations, Executor executor) {
+        this.solvers = solvers;
+        this.start = start;
+        this.includeConfigurations = includeConfigurations;
+        this.executor = executor;
+    }
+
+    /**
+     * Start a solve for a new subscriber.
+     * @param subscriber the subscriber
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super SolveEvent> subscriber) {
+        Objects.requireNonNull(subscriber);
+        SolveSubscription subscription = new SolveSubscription(subscriber);
+        executor.execute(subscription::run);
+    }
+
+    /**
+     * Thrown from the layer listener to stop a solve once its subscription is cancelled.
+     */
+    private static class Cancelled extends RuntimeException {
+        /** the version of the serialized form */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Create the exception without a stack trace.
+         */
+        private Cancelled() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * One subscriber's solve and the demand it has signalled.
+     */
+    private class SolveSubscription implements Flow.Subscription {
+        /** the subscriber */
+        private final Flow.Subscriber<? super SolveEvent> subscriber;
+        /** the number of events requested and not sent yet */
+        private long demand;
+        /** set once the subscription is cancelled */
+        private boolean cancelled;
+        /** set if the subscriber broke the rules when requesting */
+        private IllegalArgumentException badRequest;
+
+        /**
+         * Create the subscription.
+         * @param subscriber the subscriber
+         */
+        private SolveSubscription(Flow.Subscriber<? super SolveEvent> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        /**
+         * Add to the demand, waking the solve up if it is waiting.
+         * @param n the number of events to add, must be positive
+         */
+        @Override
+        public synchronized void request(long n) {
+            if (n <= 0) {
+                badRequest = new IllegalArgumentException("Requested " + n + " events, must be positive");
+            }
+            else {
+                demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+            }
+            notifyAll();
+        }
+
+        /**
+         * Stop the solve at its next layer, no more events are sent.
+         */
+        @Override
+        public synchronized void cancel() {
+            cancelled = true;
+            notifyAll();
+        }
+
+        /**
+         * Run the solve on the executor, sending its events.
+         */
+        private void run() {
+            subscriber.onSubscribe(this);
+            Solver solver = solvers.get();
+            solver.setLayerListener((depth, layer, generated, unique) -> emit(new SolveEvent.Layer(
+                    depth, layer.size(), generated, unique,
+                    includeConfigurations ? List.copyOf(layer) : List.of())));
+            try {
+                List<Configuration> path = solver.solve(start);
+                emit(new SolveEvent.Solved(path, solver.getTotal(), solver.getUnique()));
+                subscriber.onComplete();
+            }
+            catch (Cancelled e) {
+                // the subscriber doesn't want anything more
+            }
+            catch (RuntimeException e) {
+                if (!isCancelled()) {
+                    subscriber.onError(e);
+                }
+            }
+        }
+
+        /**
+         * Is the subscription cancelled?
+         * @return true if it is
+         */
+        private synchronized boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * Wait until an event is wanted, then send it.
+         * @param event the event
+         */
+        private void emit(SolveEvent event) {
+            synchronized (this) {
+                while (demand == 0 && !cancelled && badRequest == null) {
+                    try {
+                        wait();
+                    }
+                    catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        cancelled = true;
+                    }
+                }
+                if (badRequest != null) {
+                    cancelled = true;
+                    subscriber.onError(badRequest);
+                }
+                if (cancelled) {
+                    throw new Cancelled();
+                }
+                demand--;
+            }
+            subscriber.onNext(event);
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package puzzles.common.solver;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Shares the CPUs between interactive solves, such as the hints players ask
+ * for, and batch solves, such as speculative and bulk solves. Each priority
+ * class has a limit on how many of its solves run at once and on how many
+ * may wait for a turn; a solve that would have to wait when the queue of its
+ * class is full is rejected with a RejectedExecutionException. Solves run on
+ * the caller's thread, the scheduler only decides when.
+ *
+ * Interactive solves go first. A batch solve only starts while no
+ * interactive solve is waiting, and a running batch solve checks at the end
+ * of every layer whether an interactive solve is waiting for a CPU. If one
+ * is, the batch solve gives up its CPU and waits until it can have it back,
+ * so an interactive solve never waits longer than a layer of a batch solve.
+ */
+public class SolveScheduler {
+    /**
+     * The priority classes, most urgent first.
+     */
+    public enum Priority {
+        /** someone is waiting for the result */
+        INTERACTIVE,
+        /** nobody is waiting for the result yet */
+        BATCH
+    }
+
+    /** the number of solves that run at once, of any priority */
+    private final int cpus;
+    /** the number of solves of each priority that run at once */
+    private final Map<Priority, Integer> limits = new EnumMap<>(Priority.class);
+    /** the number of solves of each priority that may wait to start */
+    private final Map<Priority, Integer> queueLimits = new EnumMap<>(Priority.class);
+    /** the number of solves of each priority running, guarded by this */
+    private final Map<Priority, Integer> running = new EnumMap<>(Priority.class);
+    /** the number of solves of each priority waiting to start, guarded by this */
+    private final Map<Priority, Integer> waiting = new EnumMap<>(Priority.class);
+    /** the number of batch solves that gave up their CPU and wait to carry on, guarded by this */
+    private int yielded;
+
+    /**
+     * Create a scheduler.
+     * @param cpus the number of solves that run at once, of any priority
+     * @param interactive the number of interactive solves that run at once
+     * @param batch the number of batch solves that run at once
+     * @param interactiveQueue the number of interactive solves that may wait
+     *                         to start
+     * @param batchQueue the number of batch solves that may wait to start
+     */
+    public SolveScheduler(int cpus, int interactive, int batch, int interactiveQueue, int batchQueue) {
+        if (cpus < 1 || interactive < 1 || batch < 1 || interactiveQueue < 0 || batchQueue < 0) {
+            throw new IllegalArgumentException("Every limit must be positive and every queue non-negative");
+        }
+        this.cpus = cpus;
+        limits.put(Priority.INTERACTIVE, interactive);
+        limits.put(Priority.BATCH, batch);
+        queueLimits.put(Priority.INTERACTIVE, interactiveQueue);
+        queueLimits.put(Priority.BATCH, batchQueue);
+        for (Priority priority : Priority.values()) {
+            running.put(priority, 0);
+            waiting.put(priority, 0);
+        }
+    }
+
+    /**
+     * The scheduler shared by every model. Interactive solves may use every
+     * CPU, batch solves at most half of them.
+     * @return the shared scheduler
+     */
+    public static SolveScheduler shared() {
+        return Shared.INSTANCE;
+    }
+
+    /**
+     * Holds the shared scheduler, so it is only made when it is first used.
+     */
+    private static class Shared {
+        /** the number of CPUs of the machine */
+        private static final int CPUS = Runtime.getRuntime().availableProcessors();
+        /** the shared scheduler */
+        private static final SolveScheduler INSTANCE =
+                new SolveScheduler(CPUS, CPUS, Math.max(1, CPUS / 2), 16 * CPUS, 4 * CPUS);
+    }
+
+    /**
+     * Solve a configuration with a BFS solver once it is the solve's turn.
+     * The solve gives up with a CancellationException at the end of the
+     * first layer after its thread is interrupted, and a batch solve gives
+     * way to interactive ones at the end of every layer.
+     * @param priority the priority of the solve
+     * @param start the configuration to solve
+     * @param progress told about every layer of the search, or null
+     * @return the solution path, empty if there is none
+     * @throws RejectedExecutionException if the solve's queue is full
+     * @throws CancellationException if the thread is interrupted
+     */
+    public List<Configuration> solve(Priority priority, Configuration start, LayerListener progress) {
+        return solve(priority, start, progress, () -> {});
+    }
+
+    /**
+     * Solve a configuration like solve(priority, start, progress), telling
+     * the caller when the solve gets its turn.
+     * @param priority the priority of the solve
+     * @param start the configuration to solve
+     * @param progress told about every layer of the search, or null
+     * @param started run once the solve stops waiting for its turn
+     * @return the solution path, empty if there is none
+     * @throws RejectedExecutionException if the solve's queue is full
+     * @throws CancellationException if the thread is interrupted
+     */
+    public List<Configuration> solve(Priority priority, Configuration start, LayerListener progress,
+                                     Runnable started) {
+        Solver solver = new Solver();
+        solver.setLayerListener((depth, layer, generated, unique) -> {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("Solve cancelled");
+            }
+            if (priority == Priority.BATCH) {
+                yieldToInteractive();
+            }
+            if (progress != null) {
+                progress.layerCompleted(depth, layer, generated, unique);
+            }
+        });
+        return run(priority, () -> {
+            started.run();
+            return solver.solve(start);
+        });
+    }
+
+    /**
+     * Run some work on the calling thread once it is its turn. Batch work
+     * should call yieldToInteractive now and then.
+     * @param priority the priority of the work
+     * @param work the work
+     * @param <T> the type of result of the work
+     * @return the result
+     * @throws RejectedExecutionException if the work's queue is full
+     * @throws CancellationException if the thread is interrupted while
+     *                               waiting for its turn
+     */
+    public <T> T run(Priority priority, Supplier<T> work) {
+        admit(priority);
+        try {
+            return work.get();
+        }
+        finally {
+            release(priority);
+        }
+    }
+
+    /**
+     * Give up the CPU of a running batch solve while an interactive solve is
+     * waiting for one, and wait until it can be had back. Does nothing if no
+     * interactive solve is waiting, or if the ones waiting are held back by
+     * their own limit rather than by the CPUs. Only batch work run by this
+     * scheduler may call it.
+     * @throws CancellationException if the thread is interrupted while waiting
+     */
+    public synchronized void yieldToInteractive() {
+        if (waiting.get(Priority.INTERACTIVE) == 0
+                || running.get(Priority.INTERACTIVE) >= limits.get(Priority.INTERACTIVE)) {
+            return;
+        }
+        change(running, Priority.BATCH, -1);
+        yielded++;
+        notifyAll();
+        try {
+            while (!canStart(Priority.BATCH)) {
+                wait();
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Solve cancelled");
+        }
+        finally {
+            yielded--;
+            change(running, Priority.BATCH, 1);
+        }
+    }
+
+    /**
+     * The number of solves of a priority that run at once.
+     * @param priority the priority
+     * @return the limit
+     */
+    public int limit(Priority priority) {
+        return limits.get(priority);
+    }
+
+    /**
+     * The number of solves of a priority running.
+     * @param priority the priority
+     * @return the number of solves
+     */
+    public synchronized int running(Priority priority) {
+        return running.get(priority);
+    }
+
+    /**
+     * The number of solves of a priority waiting to start. Batch solves that
+     * gave way to interactive ones aren't counted.
+     * @param priority the priority
+     * @return the number of solves
+     */
+    public synchronized int waiting(Priority priority) {
+        return waiting.get(priority);
+    }
+
+    /**
+     * The number of batch solves that gave way to interactive ones and are
+     * waiting to carry on.
+     * @return the number of solves
+     */
+    public synchronized int yielded() {
+        return yielded;
+    }
+
+    /**
+     * Wait for a solve's turn and count it as running.
+     * @param priority the priority of the solve
+     * @throws RejectedExecutionException if it would have to wait and its
+     *                                    queue is full
+     * @throws CancellationException if the thread is interrupted
+     */
+    private synchronized void admit(Priority priority) {
+        if (!canStart(priority) && waiting.get(priority) >= queueLimits.get(priority)) {
+            throw new RejectedExecutionException("Too many " + priority + " solves waiting");
+        }
+        change(waiting, priority, 1);
+        try {
+            while (!canStart(priority)) {
+                wait();
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Solve cancelled");
+        }
+        finally {
+            change(waiting, priority, -1);
+            //A waiting interactive solve may have been holding batch solves back
+            notifyAll();
+        }
+        change(running, priority, 1);
+    }
+
+    /**
+     * Count a solve as finished and let the next one start.
+     * @param priority the priority of the solve
+     */
+    private synchronized void release(Priority priority) {
+        change(running, priority, -1);
+        notifyAll();
+    }
+
+    /**
+     * Whether a solve of a priority could start now. An interactive solve
+     * needs a free CPU under its limit. A batch solve also needs no
+     * interactive solve to be waiting.
+     * @param priority the priority of the solve
+     * @return true if it could start
+     */
+    private boolean canStart(Priority priority) {
+        int total = running.get(Priority.INTERACTIVE) + running.get(Priority.BATCH);
+        if (total >= cpus || running.get(priority) >= limits.get(priority)) {
+            return false;
+        }
+        return priority == Priority.INTERACTIVE || waiting.get(Priority.INTERACTIVE) == 0;
+    }
+
+    /**
+     * Add to one of the counts.
+     * @param counts the counts
+     * @param priority the priority whose count changes
+     * @param delta how much to add
+     */
+    private static void change(Map<Priority, Integer> counts, Priority priority, int delta) {
+        counts.merge(priority, delta, Integer::sum);
+    }
+}
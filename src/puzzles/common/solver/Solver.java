@@ -10,8 +10,12 @@ import java.util.*;
  * @author Jaden Vo
  */
 public class Solver {
-    private int totalConfig;
-    private int uniqueConfig;
+    /** the number of configurations generated by the last solve */
+    protected int totalConfig;
+    /** the number of distinct configurations seen by the last solve */
+    protected int uniqueConfig;
+    /** told about every layer of the search as it is completed, or null */
+    private LayerListener layerListener;
     /**
      * The solve method first creates a queue which is a LinkedList and a HashMap of predecessors.
      * It iterates through the queue until it is empty, searching for the solution using a BFS. Once
@@ -21,6 +25,9 @@ public class Solver {
      * @return The fastest possible path to get to the desired solution.
      */
     public List<Configuration> solve(Configuration c){
+        if (provablyUnsolvable(c)){
+            return new LinkedList<>();
+        }
         int total = 0;
         Configuration end = null;
         List<Configuration> queue = new LinkedList<>();
@@ -28,6 +35,9 @@ public class Solver {
         total++;
         Map<Configuration, Configuration> predecessor = new HashMap<>();
         predecessor.put(c, null);
+        int depth = 0;
+        int layerLeft = 1;
+        announceLayer(depth, queue, total, predecessor.size());
         while (!queue.isEmpty()){
             Configuration current = queue.remove(0);
             if (current.isSolution()){
@@ -38,15 +48,73 @@ public class Solver {
                 total++;
                 if(!predecessor.containsKey(nbr)){
                     predecessor.put(nbr, current);
-                    queue.add(nbr);
+                    if (!nbr.isDeadEnd()){
+                        queue.add(nbr);
+                    }
                 }
             }
+            if (--layerLeft == 0 && !queue.isEmpty()){
+                depth++;
+                layerLeft = queue.size();
+                announceLayer(depth, queue, total, predecessor.size());
+            }
         }
         totalConfig = total;
         uniqueConfig = predecessor.size();
         return pathConstruct(predecessor, c, end);
     }
 
+    /**
+     * Sets the listener told about every layer of the following searches. The solvers that
+     * search layer by layer call it once a layer has been generated in full, from the solving
+     * thread, so a slow listener slows the search down rather than letting layers pile up.
+     *
+     * @param listener the listener, or null for none
+     */
+    public void setLayerListener(LayerListener listener){
+        this.layerListener = listener;
+    }
+
+    /**
+     * Gets the listener set with setLayerListener, so a solver that hands its search to another
+     * solver can pass it on.
+     *
+     * @return the listener, or null for none
+     */
+    protected LayerListener getLayerListener(){
+        return layerListener;
+    }
+
+    /**
+     * Tells the listener, if there is one, that a layer is complete.
+     *
+     * @param depth the number of moves from the start to the layer
+     * @param layer the configurations of the layer, only valid during the call
+     * @param generated the number of configurations generated so far
+     * @param unique the number of distinct configurations seen so far
+     */
+    protected void announceLayer(int depth, List<Configuration> layer, int generated, int unique){
+        if (layerListener != null){
+            layerListener.layerCompleted(depth, Collections.unmodifiableList(layer), generated, unique);
+        }
+    }
+
+    /**
+     * Runs the configuration's static unsolvability check before a search, so boards that
+     * can't be solved are given up on without generating a single neighbor.
+     *
+     * @param c The start configuration
+     * @return true if the start is certainly unsolvable, in which case the counts are reset
+     */
+    protected boolean provablyUnsolvable(Configuration c){
+        if (c.isUnsolvable()){
+            totalConfig = 0;
+            uniqueConfig = 0;
+            return true;
+        }
+        return false;
+    }
+
     /**
      * A helper method for the solve class to create a path based on the predecessor map.
      *
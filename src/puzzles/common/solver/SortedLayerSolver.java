@@ -0,0 +1,296 @@
+package puzzles.common.solver;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * A breadth first solver that removes duplicates a whole layer at a time
+ * instead of probing a hash map for every child (delayed duplicate
+ * detection). The children of a frontier are written as packed 64-bit keys
+ * (their fingerprints), radix sorted, deduplicated, and then merge-subtracted
+ * against the sorted keys of earlier layers. All of this is sequential array
+ * work, so it stays cache friendly on wide layers, and the expansion of a
+ * frontier can be split across threads.
+ *
+ * Every layer keeps only its sorted keys and the index of each key's parent
+ * in the previous layer. Once a solution is found the chain of parent indices
+ * gives the keys along the path, and the path is rebuilt by regenerating the
+ * neighbors of each step and picking the one with the next key.
+ *
+ * Like {@link ProbabilisticSolver}, configurations with the same fingerprint
+ * are treated as one. By default each layer is subtracted against every
+ * earlier layer; subtracting only the last two layers is enough for puzzles
+ * whose moves can all be undone, and is faster on them.
+ */
+public class SortedLayerSolver extends Solver {
+    /** subtract against every earlier layer */
+    public static final int ALL_LAYERS = -1;
+
+    /** the number of earlier layers each new layer is subtracted against */
+    private final int locality;
+    /** whether frontiers are expanded on several threads */
+    private final boolean parallel;
+
+    /**
+     * A BFS layer: its fingerprints in sorted order and, for each, the index
+     * of its parent in the previous layer.
+     * @param keys the sorted fingerprints
+     * @param parents the parent index of each fingerprint
+     */
+    private record Layer(long[] keys, int[] parents) {}
+
+    /**
+     * Create a single threaded solver that subtracts against every earlier layer.
+     */
+    public SortedLayerSolver() {
+        this(ALL_LAYERS, false);
+    }
+
+    /**
+     * Create a solver.
+     * @param locality the number of earlier layers to subtract against, or
+     *                 {@link #ALL_LAYERS}
+     * @param parallel whether frontiers are expanded on several threads
+     */
+    public SortedLayerSolver(int locality, boolean parallel) {
+        this.locality = locality;
+        this.parallel = parallel;
+    }
+
+    /**
+     * Search layer by layer, removing duplicates by sorting and merging.
+     *
+     * @param c The inputted Configuration to find the solution of
+     * @return The fastest possible path to get to the desired solution.
+     */
+    @Override
+    public List<Configuration> solve(Configuration c) {
+        if (provablyUnsolvable(c)) {
+            return new LinkedList<>();
+        }
+        List<Layer> layers = new ArrayList<>();
+        long[] visited = new long[0];
+        Configuration[] frontier = {c};
+        layers.add(new Layer(new long[]{c.fingerprint()}, new int[]{-1}));
+        int total = 1;
+        int unique = 1;
+        int found = -1;
+        while (frontier.length > 0) {
+            announceLayer(layers.size() - 1, Arrays.asList(frontier), total, unique);
+            found = findSolution(frontier);
+            if (found >= 0) {
+                break;
+            }
+            Layer previous = layers.get(layers.size() - 1);
+            if (locality == ALL_LAYERS) {
+                visited = merge(visited, previous.keys());
+            }
+            Configuration[][] children = expand(frontier);
+            int count = 0;
+            for (Configuration[] group : children) {
+                count += group.length;
+            }
+            total += count;
+            long[] keys = new long[count];
+            int[] parents = new int[count];
+            Configuration[] states = new Configuration[count];
+            int next = 0;
+            for (int parent = 0; parent < children.length; parent++) {
+                for (Configuration child : children[parent]) {
+                    keys[next] = child.fingerprint();
+                    parents[next] = parent;
+                    states[next] = child;
+                    next++;
+                }
+            }
+            int[] order = radixSort(keys);
+            long[] seenBefore = locality == ALL_LAYERS ? visited : null;
+            int kept = 0;
+            long[] layerKeys = new long[count];
+            int[] layerParents = new int[count];
+            Configuration[] nextFrontier = new Configuration[count];
+            int cursor = 0;
+            for (int i = 0; i < count; i++) {
+                long key = keys[order[i]];
+                if (kept > 0 && layerKeys[kept - 1] == key) {
+                    continue;
+                }
+                if (seenBefore != null) {
+                    while (cursor < seenBefore.length && seenBefore[cursor] < key) {
+                        cursor++;
+                    }
+                    if (cursor < seenBefore.length && seenBefore[cursor] == key) {
+                        continue;
+                    }
+                }
+                else if (inRecentLayers(layers, key)) {
+                    continue;
+                }
+                layerKeys[kept] = key;
+                layerParents[kept] = parents[order[i]];
+                nextFrontier[kept] = states[order[i]];
+                kept++;
+            }
+            unique += kept;
+            layers.add(new Layer(Arrays.copyOf(layerKeys, kept), Arrays.copyOf(layerParents, kept)));
+            frontier = Arrays.copyOf(nextFrontier, kept);
+        }
+        totalConfig = total;
+        uniqueConfig = unique;
+        List<Configuration> path = new LinkedList<>();
+        if (found >= 0) {
+            path.addAll(rebuildPath(c, layers, found));
+        }
+        return path;
+    }
+
+    /**
+     * Find the first solution in a frontier, in frontier order.
+     * @param frontier the configurations of a layer
+     * @return the index of the solution, or -1 if there is none
+     */
+    private static int findSolution(Configuration[] frontier) {
+        for (int i = 0; i < frontier.length; i++) {
+            if (frontier[i].isSolution()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Generate the neighbors of every configuration in a frontier. Dead ends
+     * stay in their layer, so they are only counted once, but get no neighbors.
+     * @param frontier the configurations of a layer
+     * @return the neighbors of each configuration, in frontier order
+     */
+    private Configuration[][] expand(Configuration[] frontier) {
+        Configuration[][] children = new Configuration[frontier.length][];
+        IntStream indices = IntStream.range(0, frontier.length);
+        if (parallel) {
+            indices = indices.parallel();
+        }
+        indices.forEach(i -> children[i] = frontier[i].isDeadEnd()
+                ? new Configuration[0] : frontier[i].getNeighbors().toArray(new Configuration[0]));
+        return children;
+    }
+
+    /**
+     * Is the key in one of the last {@link #locality} layers?
+     * @param layers the layers so far
+     * @param key the fingerprint to look for
+     * @return true if it was found
+     */
+    private boolean inRecentLayers(List<Layer> layers, long key) {
+        for (int i = layers.size() - 1; i >= 0 && i >= layers.size() - locality; i--) {
+            if (Arrays.binarySearch(layers.get(i).keys(), key) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Merge two sorted key arrays into one.
+     * @param a the first sorted array
+     * @param b the second sorted array
+     * @return the sorted union
+     */
+    private static long[] merge(long[] a, long[] b) {
+        long[] result = new long[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < a.length && j < b.length) {
+            result[k++] = a[i] <= b[j] ? a[i++] : b[j++];
+        }
+        while (i < a.length) {
+            result[k++] = a[i++];
+        }
+        while (j < b.length) {
+            result[k++] = b[j++];
+        }
+        return result;
+    }
+
+    /**
+     * Least significant digit radix sort of signed 64-bit keys, 16 bits per
+     * pass. The keys aren't moved; the sorted order is returned as indices,
+     * and keys that are equal keep their original order.
+     * @param keys the keys to sort
+     * @return the indices of the keys in ascending key order
+     */
+    static int[] radixSort(long[] keys) {
+        int n = keys.length;
+        int[] order = new int[n];
+        int[] buffer = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        int[] counts = new int[1 << 16];
+        for (int shift = 0; shift < 64; shift += 16) {
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < n; i++) {
+                counts[digit(keys[order[i]], shift)]++;
+            }
+            int sum = 0;
+            for (int d = 0; d < counts.length; d++) {
+                int count = counts[d];
+                counts[d] = sum;
+                sum += count;
+            }
+            for (int i = 0; i < n; i++) {
+                buffer[counts[digit(keys[order[i]], shift)]++] = order[i];
+            }
+            int[] swap = order;
+            order = buffer;
+            buffer = swap;
+        }
+        return order;
+    }
+
+    /**
+     * One 16-bit digit of a key. The sign bit is flipped so signed keys sort
+     * in the same order as {@link Long#compare}.
+     * @param key the key
+     * @param shift the position of the digit
+     * @return the digit
+     */
+    private static int digit(long key, int shift) {
+        return (int) (((key ^ Long.MIN_VALUE) >>> shift) & 0xffff);
+    }
+
+    /**
+     * Follow the parent indices back from the solution to get the key of
+     * every step, then replay the path forward from the start.
+     * @param start the start configuration
+     * @param layers the layers of the search
+     * @param found the index of the solution in the last layer
+     * @return the path from start to the solution
+     */
+    private static List<Configuration> rebuildPath(Configuration start, List<Layer> layers, int found) {
+        int depth = layers.size() - 1;
+        long[] steps = new long[depth + 1];
+        for (int i = depth, index = found; i >= 0; index = layers.get(i).parents()[index], i--) {
+            steps[i] = layers.get(i).keys()[index];
+        }
+        List<Configuration> path = new ArrayList<>();
+        Configuration current = start;
+        path.add(current);
+        for (int i = 1; i <= depth; i++) {
+            Configuration step = null;
+            for (Configuration nbr : current.getNeighbors()) {
+                if (nbr.fingerprint() == steps[i]) {
+                    step = nbr;
+                    break;
+                }
+            }
+            if (step == null) {
+                throw new IllegalStateException("Path step " + i + " could not be regenerated");
+            }
+            path.add(step);
+            current = step;
+        }
+        return path;
+    }
+}
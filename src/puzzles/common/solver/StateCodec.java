@@ -0,0 +1,33 @@
+package puzzles.common.solver;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Converts the configurations of one puzzle board to and from a fixed number
+ * of bytes, so solvers can keep them outside the Java heap. A codec is made
+ * for a particular board, since the encoded size usually depends on its
+ * dimensions.
+ */
+public interface StateCodec {
+    /**
+     * The number of bytes every encoded configuration takes.
+     * @return the encoded size in bytes
+     */
+    int encodedSize();
+
+    /**
+     * Write a configuration at the buffer's position, advancing it by
+     * {@link #encodedSize()} bytes.
+     * @param config the configuration to encode
+     * @param out the buffer to write to
+     */
+    void encode(Configuration config, ByteBuffer out);
+
+    /**
+     * Read a configuration from the buffer's position, advancing it by
+     * {@link #encodedSize()} bytes.
+     * @param in the buffer to read from
+     * @return the decoded configuration
+     */
+    Configuration decode(ByteBuffer in);
+}
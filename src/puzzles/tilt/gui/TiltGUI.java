@@ -1,13 +1,18 @@
 package puzzles.tilt.gui;
 
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.TextField;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.*;
 import javafx.stage.FileChooser;
 import puzzles.common.Observer;
+import puzzles.common.Update;
+import puzzles.common.solver.Configuration;
 import puzzles.tilt.model.TiltModel;
 
 import javafx.application.Application;
@@ -17,12 +22,18 @@ import javafx.scene.control.Button;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 /**
  * A GUI interface for Tilt
  */
-public class TiltGUI extends Application implements Observer<TiltModel, String> {
+public class TiltGUI extends Application implements Observer<TiltModel, Update> {
     /** The resources directory is located directly underneath the gui package */
     private final static String RESOURCES_DIR = "resources/";
 
@@ -44,15 +55,39 @@ public class TiltGUI extends Application implements Observer<TiltModel, String>
     private BorderPane gridWithButtons;
     /** The stage of the GUI **/
     private Stage stage;
+    /** Runs the hint searches so the window doesn't freeze while they run **/
+    private final ExecutorService hintExecutor = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "tilt-hint");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /** The hint search that is running, or null **/
+    private Future<?> hintTask;
+    /** The hint button, disabled while a hint search is running **/
+    private Button hint;
+    /** Spins while a hint search is running **/
+    private ProgressIndicator hintProgress;
+    /** Stops the hint search that is running **/
+    private Button cancelHint;
+    /** The image view of every cell, kept between updates so only the changed cells are touched **/
+    private ImageView[][] cells;
+    /** The symbol every cell is showing **/
+    private char[][] shown;
+    /** Whether the board has changed since it was last drawn **/
+    private boolean dirty;
+    /** Draws the board at most once per pulse, and only if it has changed **/
+    private AnimationTimer renderer;
 
     /**
-     * Initializes the model and adds this as an observer.
+     * Initializes the model and adds this as an observer. The updates are
+     * run on the JavaFX Application Thread, and a burst of them only
+     * causes one update.
      * @throws IOException handles for exception for creating a tiltModel
      */
     public void init() throws IOException {
         String filename = getParameters().getRaw().get(0);
         this.model = new TiltModel(filename);
-        this.model.addObserver(this);
+        this.model.addObserver(this, Platform::runLater);
     }
 
     /**
@@ -87,35 +122,8 @@ public class TiltGUI extends Application implements Observer<TiltModel, String>
         borderPane.setTop(textField);
 
         gridWithButtons = new BorderPane();
-        gridPane = new GridPane();
-        for (int row = 0; row < model.getSize(); row++) {
-            for (int col = 0; col < model.getSize(); col++) {
-                char symbol = model.getGridValue(row, col);
-                ImageView imageView;
-                if (symbol == 'G') {
-                    imageView = new ImageView(greenDisk);
-                }
-                else if (symbol == 'B') {
-                    imageView = new ImageView(blueDisk);
-                }
-                else if (symbol == 'O') {
-                    imageView = new ImageView(hole);
-                }
-                else if (symbol == '*') {
-                    imageView = new ImageView(blocker);
-                }
-                else {
-                    imageView = new ImageView();
-                }
-                imageView.setFitWidth(75);
-                imageView.setFitHeight(75);
-                gridPane.add(imageView, col, row);
-            }
-        }
-        gridPane.setStyle("-fx-background-color: white; -fx-grid-lines-visible: true");
-        gridPane.setPadding(new Insets(20));
+        buildBoard();
         gridWithButtons.setMaxSize(Double.MAX_VALUE, Double.MAX_VALUE);
-        gridWithButtons.setCenter(gridPane);
 
         Button upButton = new Button("^");
         upButton.setStyle("-fx-font-size: 30; -fx-font-weight: bold;");
@@ -158,40 +166,91 @@ public class TiltGUI extends Application implements Observer<TiltModel, String>
         reset.setStyle("-fx-font-size: 20; -fx-font-weight: bold;");
         vBox.getChildren().add(reset);
 
-        Button hint = new Button("Hint");
+        Button undo = new Button("Undo");
+        undo.setMinWidth(70);
+        undo.setStyle("-fx-font-size: 15; -fx-font-weight: bold;");
+        Button redo = new Button("Redo");
+        redo.setMinWidth(70);
+        redo.setStyle("-fx-font-size: 15; -fx-font-weight: bold;");
+        HBox history = new HBox(undo, redo);
+        history.setSpacing(10);
+        history.setAlignment(Pos.CENTER);
+        vBox.getChildren().add(history);
+
+        hint = new Button("Hint");
         hint.setMinWidth(150);
         hint.setMinHeight(75);
         vBox.getChildren().add(hint);
         vBox.setAlignment(Pos.CENTER);
         hint.setStyle("-fx-font-size: 20; -fx-font-weight: bold;");
+
+        hintProgress = new ProgressIndicator();
+        hintProgress.managedProperty().bind(hintProgress.visibleProperty());
+        hintProgress.setVisible(false);
+        vBox.getChildren().add(hintProgress);
+
+        cancelHint = new Button("Cancel");
+        cancelHint.setMinWidth(150);
+        cancelHint.setStyle("-fx-font-size: 15; -fx-font-weight: bold;");
+        cancelHint.managedProperty().bind(cancelHint.visibleProperty());
+        cancelHint.setVisible(false);
+        vBox.getChildren().add(cancelHint);
         vBox.setSpacing(20);
         vBox.setPadding(new Insets(20));
         borderPane.setRight(vBox);
 
         stage.setScene(new Scene(borderPane));
 
+        renderer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                if (dirty) {
+                    dirty = false;
+                    renderBoard();
+                }
+            }
+        };
+        renderer.start();
+
         load.setOnAction((event -> {
+            cancelHint();
             FileChooser fileChooser = new FileChooser();
             fileChooser.setTitle("Load a game board.");
             File selectedFile = fileChooser.showOpenDialog(stage);
             model.loadBoardFromFile(selectedFile);
         }));
 
-        hint.setOnAction((event -> {
-            String message = model.getHint();
-            if (!Objects.equals(message, "")) {
-                textField.setText(message);
-                displayBoard();
-            }
+        hint.setOnAction((event -> startHint()));
+
+        cancelHint.setOnAction((event -> {
+            cancelHint();
+            textField.setText("Hint cancelled");
         }));
 
         reset.setOnAction((event -> {
-            model.loadBoardFromFile("data/tilt/" + model.getFile());
-            textField.setText("Puzzle reset!");
+            cancelHint();
+            model.reset();
+            // queued behind the update for the reset, so it isn't overwritten by it
+            Platform.runLater(() -> textField.setText("Puzzle reset!"));
             displayBoard();
         }));
 
+        undo.setOnAction((event -> {
+            cancelHint();
+            if (!model.undo()) {
+                textField.setText("Nothing to undo");
+            }
+        }));
+
+        redo.setOnAction((event -> {
+            cancelHint();
+            if (!model.redo()) {
+                textField.setText("Nothing to redo");
+            }
+        }));
+
         upButton.setOnAction((event -> {
+            cancelHint();
             if (model.gameOver()) {
                 textField.setText("Already solved!");
             } else {
@@ -203,6 +262,7 @@ public class TiltGUI extends Application implements Observer<TiltModel, String>
         }));
 
         downButton.setOnAction((event -> {
+            cancelHint();
             if (model.gameOver()) {
                 textField.setText("Already solved!");
             }
@@ -214,6 +274,7 @@ public class TiltGUI extends Application implements Observer<TiltModel, String>
         }));
 
         leftButton.setOnAction((event -> {
+            cancelHint();
             if (model.gameOver()) {
                 textField.setText("Already solved!");
             }
@@ -225,6 +286,7 @@ public class TiltGUI extends Application implements Observer<TiltModel, String>
         }));
 
         rightButton.setOnAction((event -> {
+            cancelHint();
             if (model.gameOver()) {
                 textField.setText("Already solved!");
             }
@@ -237,55 +299,179 @@ public class TiltGUI extends Application implements Observer<TiltModel, String>
     }
 
     /**
-     * Uses two for loops to search through each gridValue on the grid.
-     * It checks for the symbol and updates the specific tile with the
-     * corresponding image. It will also adjust the GUI width and height
-     * based on the size of the board.
+     * Starts searching for a hint on the hint executor, showing the progress
+     * indicator and the cancel button until it is done. The search reports
+     * how deep it has got after every layer. Its result is passed back to
+     * the JavaFX Application Thread and only used if the search is still
+     * the running one and the board hasn't changed since it was started.
+     */
+    private void startHint() {
+        if (hintTask != null) {
+            return;
+        }
+        int version = model.getVersion();
+        Supplier<List<Configuration>> search = model.hintSearch((depth, layer, generated, unique) ->
+                Platform.runLater(() -> {
+                    if (hintTask != null && version == model.getVersion()) {
+                        textField.setText("Looking for a hint: " + depth + " moves deep");
+                    }
+                }));
+        textField.setText("Looking for a hint");
+        hint.setDisable(true);
+        hintProgress.setVisible(true);
+        cancelHint.setVisible(true);
+        hintTask = hintExecutor.submit(() -> {
+            try {
+                List<Configuration> path = search.get();
+                Platform.runLater(() -> finishHint(version, path));
+            }
+            catch (CancellationException ignored) {
+
+            }
+            catch (RuntimeException e) {
+                Platform.runLater(() -> finishHint(version, null));
+            }
+        });
+    }
+
+    /**
+     * Uses the result of a hint search if the search hasn't been cancelled
+     * and the board is the one it was started on.
+     * @param version the version of the board the search was started on
+     * @param path the solution path, or null if the search failed
+     */
+    private void finishHint(int version, List<Configuration> path) {
+        if (hintTask == null || version != model.getVersion()) {
+            return;
+        }
+        cancelHint();
+        if (path == null) {
+            textField.setText("Hint failed");
+            return;
+        }
+        String message = model.applyHint(path);
+        if (!Objects.equals(message, "")) {
+            textField.setText(message);
+            displayBoard();
+        }
+    }
+
+    /**
+     * Stops the hint search that is running, if there is one, by
+     * interrupting it, and hides the progress indicator and cancel button.
+     */
+    private void cancelHint() {
+        if (hintTask != null) {
+            hintTask.cancel(true);
+            hintTask = null;
+            hint.setDisable(false);
+            hintProgress.setVisible(false);
+            cancelHint.setVisible(false);
+        }
+    }
+
+    /**
+     * Stops any hint search when the window is closed.
+     */
+    @Override
+    public void stop() {
+        hintExecutor.shutdownNow();
+        if (renderer != null) {
+            renderer.stop();
+        }
+    }
+
+    /**
+     * Marks the board as changed. It is redrawn at the next pulse, so any
+     * number of updates in between only cost one redraw.
      */
     public void displayBoard() {
-        gridPane = new GridPane();
-        for (int row = 0; row < model.getSize(); row++) {
-            for (int col = 0; col < model.getSize(); col++) {
+        dirty = true;
+    }
+
+    /**
+     * Brings the board on screen up to date with the model. The cells are
+     * kept between redraws, and only the cells whose symbol changed get a
+     * new image, so the scene graph only changes where sliders moved. The
+     * whole board is only rebuilt, and the window resized, when a board of
+     * a different size is loaded.
+     */
+    private void renderBoard() {
+        int size = model.getSize();
+        if (cells == null || cells.length != size) {
+            buildBoard();
+            stage.setWidth(75 * size + 400);
+            stage.setHeight(75 * size + 275);
+            return;
+        }
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
                 char symbol = model.getGridValue(row, col);
-                ImageView imageView;
-                if (symbol == 'G') {
-                    imageView = new ImageView(greenDisk);
-                }
-                else if (symbol == 'B') {
-                    imageView = new ImageView(blueDisk);
-                }
-                else if (symbol == 'O') {
-                    imageView = new ImageView(hole);
-                }
-                else if (symbol == '*') {
-                    imageView = new ImageView(blocker);
-                }
-                else {
-                    imageView = new ImageView();
+                if (symbol != shown[row][col]) {
+                    shown[row][col] = symbol;
+                    cells[row][col].setImage(imageFor(symbol));
                 }
+            }
+        }
+    }
+
+    /**
+     * Creates a new grid pane with an image view for every cell of the
+     * board and puts it in the center of the board with the buttons.
+     */
+    private void buildBoard() {
+        int size = model.getSize();
+        gridPane = new GridPane();
+        cells = new ImageView[size][size];
+        shown = new char[size][size];
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                char symbol = model.getGridValue(row, col);
+                ImageView imageView = new ImageView(imageFor(symbol));
                 imageView.setFitWidth(75);
                 imageView.setFitHeight(75);
                 gridPane.add(imageView, col, row);
-                stage.setWidth(75 * model.getSize() + 400);
-                stage.setHeight(75 * model.getSize() + 275);
+                cells[row][col] = imageView;
+                shown[row][col] = symbol;
             }
         }
         gridPane.setStyle("-fx-background-color: white; -fx-grid-lines-visible: true");
         gridPane.setPadding(new Insets(20));
-        gridWithButtons.setMaxSize(Double.MAX_VALUE, Double.MAX_VALUE);
         gridWithButtons.setCenter(gridPane);
     }
 
+    /**
+     * The image for a symbol of the board.
+     * @param symbol the symbol
+     * @return the image, or null for an empty cell
+     */
+    private Image imageFor(char symbol) {
+        if (symbol == 'G') {
+            return greenDisk;
+        }
+        else if (symbol == 'B') {
+            return blueDisk;
+        }
+        else if (symbol == 'O') {
+            return hole;
+        }
+        else if (symbol == '*') {
+            return blocker;
+        }
+        return null;
+    }
+
     /**
      * Updates the message in the textField with a specific message.
      * It also displays the updated board.
      * @param tiltModel the object that wishes to inform this object
      *                about something that has happened.
-     * @param message optional data the server.model can send to the observer
+     * @param update the message, and whether the board has changed
      *
      */
     @Override
-    public void update(TiltModel tiltModel, String message) {
+    public void update(TiltModel tiltModel, Update update) {
+        String message = update.message();
         if (message.equals(TiltModel.LOADED)) {
             textField.setText(message + model.getFile());
             displayBoard();
@@ -305,6 +491,10 @@ public class TiltGUI extends Application implements Observer<TiltModel, String>
             }
             return;
         }
+        else if (message.equals(TiltModel.UNDONE) || message.equals(TiltModel.REDONE)) {
+            displayBoard();
+            textField.setText(message);
+        }
         else {
             displayBoard();
             textField.setText("");
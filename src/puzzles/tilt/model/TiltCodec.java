@@ -0,0 +1,66 @@
+package puzzles.tilt.model;
+
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.StateCodec;
+import java.nio.ByteBuffer;
+
+/**
+ * The StateCodec for the Tilt boards of one layout. Each cell
+ * of the grid is stored as one byte holding its symbol.
+ */
+public class TiltCodec implements StateCodec {
+    /** The amount of size/column on the grid **/
+    private final int size;
+    /** A config of the board, whose pattern database decoded configs share **/
+    private final TiltConfig board;
+
+    /**
+     * Creates a codec for the board of the given config.
+     * @param config A config of the board being solved
+     */
+    public TiltCodec(TiltConfig config) {
+        this.size = config.getSize();
+        this.board = config;
+    }
+
+    /**
+     * The number of bytes for one board, one per cell.
+     * @return the encoded size in bytes
+     */
+    @Override
+    public int encodedSize() {
+        return size * size;
+    }
+
+    /**
+     * Writes the grid of a TiltConfig row by row.
+     * @param config the TiltConfig to encode
+     * @param out the buffer to write to
+     */
+    @Override
+    public void encode(Configuration config, ByteBuffer out) {
+        TiltConfig tilt = (TiltConfig) config;
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                out.put((byte) tilt.getGridValue(row, col));
+            }
+        }
+    }
+
+    /**
+     * Reads a grid row by row and creates its TiltConfig, which
+     * shares the pattern database of the codec's board.
+     * @param in the buffer to read from
+     * @return the decoded TiltConfig
+     */
+    @Override
+    public Configuration decode(ByteBuffer in) {
+        char[][] grid = new char[size][size];
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                grid[row][col] = (char) in.get();
+            }
+        }
+        return new TiltConfig(grid, board);
+    }
+}
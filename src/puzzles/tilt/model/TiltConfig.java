@@ -2,7 +2,10 @@ package puzzles.tilt.model;
 
 // TODO: implement your TiltConfig for the common solver
 
+import puzzles.common.Zobrist;
 import puzzles.common.solver.Configuration;
+import puzzles.common.solver.Heuristic;
+import puzzles.common.solver.KeyedConfiguration;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
@@ -12,7 +15,7 @@ import java.util.*;
  * The TiltConfig for the Tilt class. It provides all
  * the information needed to find a solution with solver.
  */
-public class TiltConfig implements Configuration {
+public class TiltConfig implements KeyedConfiguration {
     /** The green slider symbol **/
     private final static char GREEN = 'G';
     /** The blue slider symbol **/
@@ -23,18 +26,32 @@ public class TiltConfig implements Configuration {
     private final static char BLOCKER = '*';
     /** The hole symbol **/
     private final static char HOLE = 'O';
+    /** The move number of tilting up **/
+    private final static int UP = 0;
+    /** The move number of tilting down **/
+    private final static int DOWN = 1;
+    /** The move number of tilting left **/
+    private final static int LEFT = 2;
+    /** The move number of tilting right **/
+    private final static int RIGHT = 3;
 
     /** The amount of size/column on the grid **/
     private int size;
     /** The grid representing the board **/
     private char[][] grid;
-    /** A set of valid moves/neighbors **/
-    private Set<Configuration> neighbors;
+    /** The Zobrist keys for sliders on this board size **/
+    private Zobrist zobrist;
+    /** The Zobrist hash of the sliders on the grid **/
+    private long hash;
+    /** The distances to the hole for the board's layout, shared by every tilt of it **/
+    private TiltPatternDatabase layoutTable;
+    /** Whether some green slider sits where it can never reach the hole **/
+    private boolean deadEnd;
 
     /**
      * The TiltConfig which creates the grid from the given filename
      * and sets it to a private variable. Size is also set to a private
-     * variable and neighbors is initialized.
+     * variable.
      * @param filename The filename of the puzzle
      * @throws IOException Handles a FileNotFound exception
      */
@@ -59,19 +76,87 @@ public class TiltConfig implements Configuration {
                 }
             }
         }
-        this.neighbors = new LinkedHashSet<>();
+        this.zobrist = Zobrist.forBoard(size, size, 2);
+        this.hash = hashGrid();
+        this.layoutTable = new TiltPatternDatabase(this);
+        this.deadEnd = layoutTable.estimate(this) == Heuristic.UNREACHABLE;
     }
 
 
     /**
      * The TiltConfig which sets the given grid to a private variable.
-     * Size is also set to a private variable and neighbors is initialized.
+     * Size is also set to a private variable.
      * @param grid
      */
     public TiltConfig(char[][] grid) {
         this.grid = grid;
         this.size = grid.length;
-        this.neighbors = new LinkedHashSet<>();
+        this.zobrist = Zobrist.forBoard(size, size, 2);
+        this.hash = hashGrid();
+        this.layoutTable = new TiltPatternDatabase(this);
+        this.deadEnd = layoutTable.estimate(this) == Heuristic.UNREACHABLE;
+    }
+
+    /**
+     * The TiltConfig for another grid of an existing board, such
+     * as one read back by the TiltCodec. It shares the board's
+     * Zobrist keys and pattern database instead of building them
+     * again, so only its hash and dead end check are worked out.
+     * @param grid The grid, with the same layout as the board
+     * @param board A config of the board
+     */
+    TiltConfig(char[][] grid, TiltConfig board) {
+        this.grid = grid;
+        this.size = grid.length;
+        this.zobrist = board.zobrist;
+        this.hash = hashGrid();
+        this.layoutTable = board.layoutTable;
+        this.deadEnd = layoutTable.estimate(this) == Heuristic.UNREACHABLE;
+    }
+
+    /**
+     * The TiltConfig for a tilted grid whose hash and dead end
+     * check were already updated incrementally by the tilt. Rows
+     * the tilt didn't change are shared with the parent, so a
+     * history of tilts only keeps the rows that changed.
+     * @param grid The tilted grid, sharing unchanged rows with the parent
+     * @param parent The config that was tilted
+     * @param hash The hash of the tilted grid
+     * @param deadEnd Whether a green slider got stuck
+     */
+    private TiltConfig(char[][] grid, TiltConfig parent, long hash, boolean deadEnd) {
+        this.grid = grid;
+        this.size = grid.length;
+        this.zobrist = parent.zobrist;
+        this.hash = hash;
+        this.layoutTable = parent.layoutTable;
+        this.deadEnd = deadEnd;
+    }
+
+    /**
+     * Gets the Zobrist piece number of a slider.
+     * @param symbol The slider symbol
+     * @return 0 for a green slider, 1 for a blue slider
+     */
+    private static int piece(char symbol) {
+        return symbol == GREEN ? 0 : 1;
+    }
+
+    /**
+     * Computes the Zobrist hash of the whole grid. Only the sliders
+     * are hashed since blockers and the hole never move.
+     * @return the hash of the grid
+     */
+    private long hashGrid() {
+        long result = 0;
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                if (grid[row][col] == GREEN || grid[row][col] == BLUE) {
+                    result ^= zobrist.key(row, col, piece(grid[row][col]));
+                }
+            }
+        }
+        return result;
     }
 
     /**
@@ -120,15 +205,54 @@ public class TiltConfig implements Configuration {
         return true;
     }
 
+    /**
+     * Static check run by the solvers before searching. The board is
+     * unsolvable if some green slider has no blocker-free line of tilts
+     * that could ever take it into the hole, which the pattern database
+     * of the board's layout works out.
+     * @return true if the board certainly has no solution
+     */
+    @Override
+    public boolean isUnsolvable() {
+        return deadEnd;
+    }
+
+    /**
+     * Checks if a green slider is on a cell the pattern database
+     * can't reach the hole from. A slider on such a cell can only
+     * ever move to other such cells, so nothing tilted from here is
+     * a solution. The check is done as the sliders land in each tilt.
+     * @return boolean for whether this config can be pruned
+     */
+    @Override
+    public boolean isDeadEnd() {
+        return deadEnd;
+    }
+
+    /**
+     * Checks if a slider that landed on a cell is stuck there
+     * for good, meaning it is green and can't reach the hole.
+     * @param piece The Zobrist piece number of the slider
+     * @param row The row it landed on
+     * @param col The column it landed on
+     * @return boolean for whether the slider is stuck
+     */
+    private boolean stuck(int piece, int row, int col) {
+        return piece == 0 && layoutTable.distance(row, col) == TiltPatternDatabase.UNREACHABLE;
+    }
+
     /**
      * Get the neighbor moves using helper methods that
      * check for the four directions. If the helper methods
      * return null, it means that config is not value, and
-     * it isn't added to neighbors.
+     * it isn't added to neighbors. Every call makes a new
+     * collection, so a config can be expanded on several
+     * threads at once.
      * @return a collection full of neighbor moves
      */
     @Override
     public Collection<Configuration> getNeighbors() {
+        Set<Configuration> neighbors = new LinkedHashSet<>();
         TiltConfig upConfig = (TiltConfig) up();
         if (upConfig != null) {
             neighbors.add(upConfig);
@@ -153,15 +277,137 @@ public class TiltConfig implements Configuration {
     }
 
     /**
-     * Deep copies the current grid to a new grid
-     * @return the new copied grid
+     * The four tilts are the moves, numbered in the
+     * order getNeighbors tries them.
+     * @return the number of moves
      */
-    private char[][] copyGrid() {
-        char[][] copyGrid = new char[size][size];
-        for (int row = 0; row < size; row++) {
-            copyGrid[row] = grid[row].clone();
+    @Override
+    public int moveCount() {
+        return 4;
+    }
+
+    /**
+     * Works out the hash of the grid after each tilt without
+     * copying the grid. A tilt that drops a blue slider into
+     * the hole isn't legal.
+     * @param keys Filled in with the hash after each legal tilt
+     * @return a bit mask of the legal tilts
+     */
+    @Override
+    public int childKeys(long[] keys) {
+        int legal = 0;
+        for (int move = UP; move <= RIGHT; move++) {
+            if (tiltKey(move, keys)) {
+                legal |= 1 << move;
+            }
+        }
+        return legal;
+    }
+
+    /**
+     * Creates the config after a tilt.
+     * @param move The move number of the tilt
+     * @return the tilted config
+     */
+    @Override
+    public Configuration child(int move) {
+        return switch (move) {
+            case UP -> up();
+            case DOWN -> down();
+            case LEFT -> left();
+            case RIGHT -> right();
+            default -> throw new IllegalArgumentException("No tilt number " + move);
+        };
+    }
+
+    /**
+     * Works out the hash after one tilt. Each row or column is
+     * scanned from the edge the sliders move towards, keeping
+     * track of where the next slider will stop. A blocker or the
+     * hole moves that spot to just past it, and a slider either
+     * stops there or, if the spot is right past the hole, falls in.
+     * @param move The move number of the tilt
+     * @param keys Gets the hash at index move if the tilt is legal
+     * @return boolean for whether the tilt is legal
+     */
+    private boolean tiltKey(int move, long[] keys) {
+        long key = hash;
+        for (int line = 0; line < size; line++) {
+            int stop = 0;
+            boolean intoHole = false;
+            for (int i = 0; i < size; i++) {
+                int row = lineRow(move, line, i);
+                int col = lineCol(move, line, i);
+                char symbol = grid[row][col];
+                if (symbol == BLOCKER || symbol == HOLE) {
+                    stop = i + 1;
+                    intoHole = symbol == HOLE;
+                }
+                else if (symbol == GREEN || symbol == BLUE) {
+                    int piece = piece(symbol);
+                    key ^= zobrist.key(row, col, piece);
+                    if (intoHole) {
+                        if (symbol == BLUE) {
+                            return false;
+                        }
+                    }
+                    else {
+                        key ^= zobrist.key(lineRow(move, line, stop), lineCol(move, line, stop), piece);
+                        stop++;
+                    }
+                }
+            }
         }
-        return copyGrid;
+        keys[move] = key;
+        return true;
+    }
+
+    /**
+     * Gets the row of a cell counted from the edge a tilt moves
+     * the sliders towards.
+     * @param move The move number of the tilt
+     * @param line The column for up and down, the row for left and right
+     * @param i How far the cell is from the edge
+     * @return the row of the cell
+     */
+    private int lineRow(int move, int line, int i) {
+        return switch (move) {
+            case UP -> i;
+            case DOWN -> size - 1 - i;
+            default -> line;
+        };
+    }
+
+    /**
+     * Gets the column of a cell counted from the edge a tilt moves
+     * the sliders towards.
+     * @param move The move number of the tilt
+     * @param line The column for up and down, the row for left and right
+     * @param i How far the cell is from the edge
+     * @return the column of the cell
+     */
+    private int lineCol(int move, int line, int i) {
+        return switch (move) {
+            case LEFT -> i;
+            case RIGHT -> size - 1 - i;
+            default -> line;
+        };
+    }
+
+    /**
+     * Gets a row of a tilted grid that can be changed. The tilted
+     * grid starts out sharing every row with this config's grid,
+     * and a row is only copied the first time the tilt changes it,
+     * so the rows a tilt leaves alone stay shared.
+     * @param tilted The tilted grid
+     * @param row The row about to change
+     * @return the row, owned by the tilted grid
+     */
+    private char[] writable(char[][] tilted, int row) {
+        if (tilted[row] == grid[row]) {
+            tilted[row] = grid[row].clone();
+        }
+        return tilted[row];
     }
 
     /**
@@ -174,16 +420,20 @@ public class TiltConfig implements Configuration {
      * @return a new Config after the puzzle is tilted up
      */
     public Configuration up() {
-        char[][] upGrid = copyGrid();
+        char[][] upGrid = grid.clone();
+        long upHash = hash;
+        boolean upDead = deadEnd;
         for (int row = 1; row < size; row++) {
             for (int col = 0; col < size; col++) {
                 if (upGrid[row][col] == GREEN || upGrid[row][col] == BLUE) {
+                    int piece = piece(upGrid[row][col]);
+                    upHash ^= zobrist.key(row, col, piece);
                     int tempRow = row;
                     int rowAbove = row - 1;
                     while (upGrid[rowAbove][col] == EMPTY) {
                         char tempChar = upGrid[tempRow][col];
-                        upGrid[tempRow][col] = EMPTY;
-                        upGrid[rowAbove][col] = tempChar;
+                        writable(upGrid, tempRow)[col] = EMPTY;
+                        writable(upGrid, rowAbove)[col] = tempChar;
                         rowAbove--;
                         tempRow--;
                         if (rowAbove == -1) {
@@ -195,12 +445,16 @@ public class TiltConfig implements Configuration {
                         if (upGrid[tempRow][col] == BLUE) {
                             return null;
                         }
-                        upGrid[tempRow][col] = EMPTY;
+                        writable(upGrid, tempRow)[col] = EMPTY;
+                    }
+                    else {
+                        upHash ^= zobrist.key(tempRow, col, piece);
+                        upDead |= stuck(piece, tempRow, col);
                     }
                 }
             }
         }
-        return new TiltConfig(upGrid);
+        return new TiltConfig(upGrid, this, upHash, upDead);
     }
 
     /**
@@ -214,16 +468,20 @@ public class TiltConfig implements Configuration {
      */
     public Configuration down() {
         //look lowest row
-        char[][] downGrid = copyGrid();
+        char[][] downGrid = grid.clone();
+        long downHash = hash;
+        boolean downDead = deadEnd;
         for (int row = size - 2; row > -1; row--) {
             for (int col = 0; col < size; col++) {
                 if (downGrid[row][col] == GREEN || downGrid[row][col] == BLUE) {
+                    int piece = piece(downGrid[row][col]);
+                    downHash ^= zobrist.key(row, col, piece);
                     int tempRow = row;
                     int rowBelow = row + 1;
                     while (downGrid[rowBelow][col] == EMPTY) {
                         char tempChar = downGrid[tempRow][col];
-                        downGrid[tempRow][col] = EMPTY;
-                        downGrid[rowBelow][col] = tempChar;
+                        writable(downGrid, tempRow)[col] = EMPTY;
+                        writable(downGrid, rowBelow)[col] = tempChar;
                         rowBelow++;
                         tempRow++;
                         if (rowBelow == size) {
@@ -235,12 +493,16 @@ public class TiltConfig implements Configuration {
                         if (downGrid[tempRow][col] == BLUE) {
                             return null;
                         }
-                        downGrid[tempRow][col] = EMPTY;
+                        writable(downGrid, tempRow)[col] = EMPTY;
+                    }
+                    else {
+                        downHash ^= zobrist.key(tempRow, col, piece);
+                        downDead |= stuck(piece, tempRow, col);
                     }
                 }
             }
         }
-        return new TiltConfig(downGrid);
+        return new TiltConfig(downGrid, this, downHash, downDead);
     }
 
     /**
@@ -254,16 +516,20 @@ public class TiltConfig implements Configuration {
      */
     public Configuration left() {
         //look leftest col
-        char[][] leftGrid = copyGrid();
+        char[][] leftGrid = grid.clone();
+        long leftHash = hash;
+        boolean leftDead = deadEnd;
         for (int col = 1; col < size; col++) {
             for (int row = 0; row < size; row++) {
                 if (leftGrid[row][col] == GREEN || leftGrid[row][col] == BLUE) {
+                    int piece = piece(leftGrid[row][col]);
+                    leftHash ^= zobrist.key(row, col, piece);
                     int tempCol = col;
                     int colLeft = col - 1;
                     while (leftGrid[row][colLeft] == EMPTY) {
                         char tempChar = leftGrid[row][tempCol];
-                        leftGrid[row][tempCol] = EMPTY;
-                        leftGrid[row][colLeft] = tempChar;
+                        writable(leftGrid, row)[tempCol] = EMPTY;
+                        writable(leftGrid, row)[colLeft] = tempChar;
                         colLeft--;
                         tempCol--;
                         if (colLeft == -1) {
@@ -275,12 +541,16 @@ public class TiltConfig implements Configuration {
                         if (leftGrid[row][tempCol] == BLUE) {
                             return null;
                         }
-                        leftGrid[row][tempCol] = EMPTY;
+                        writable(leftGrid, row)[tempCol] = EMPTY;
+                    }
+                    else {
+                        leftHash ^= zobrist.key(row, tempCol, piece);
+                        leftDead |= stuck(piece, row, tempCol);
                     }
                 }
             }
         }
-        return new TiltConfig(leftGrid);
+        return new TiltConfig(leftGrid, this, leftHash, leftDead);
     }
 
     /**
@@ -294,16 +564,20 @@ public class TiltConfig implements Configuration {
      */
     public Configuration right() {
         //look rightest col
-        char[][] rightGrid = copyGrid();
+        char[][] rightGrid = grid.clone();
+        long rightHash = hash;
+        boolean rightDead = deadEnd;
         for (int col = size - 2; col > -1; col--) {
             for (int row = 0; row < size; row++) {
                 if (rightGrid[row][col] == GREEN || rightGrid[row][col] == BLUE) {
+                    int piece = piece(rightGrid[row][col]);
+                    rightHash ^= zobrist.key(row, col, piece);
                     int tempCol = col;
                     int colRight = col + 1;
                     while (rightGrid[row][colRight] == EMPTY) {
                         char tempChar = rightGrid[row][tempCol];
-                        rightGrid[row][tempCol] = EMPTY;
-                        rightGrid[row][colRight] = tempChar;
+                        writable(rightGrid, row)[tempCol] = EMPTY;
+                        writable(rightGrid, row)[colRight] = tempChar;
                         colRight++;
                         tempCol++;
                         if (colRight == size) {
@@ -315,25 +589,30 @@ public class TiltConfig implements Configuration {
                         if (rightGrid[row][tempCol] == BLUE) {
                             return null;
                         }
-                        rightGrid[row][tempCol] = EMPTY;
+                        writable(rightGrid, row)[tempCol] = EMPTY;
+                    }
+                    else {
+                        rightHash ^= zobrist.key(row, tempCol, piece);
+                        rightDead |= stuck(piece, row, tempCol);
                     }
                 }
             }
         }
-        return new TiltConfig(rightGrid);
+        return new TiltConfig(rightGrid, this, rightHash, rightDead);
     }
 
     /**
      * Checks to see if this is equal to another TiltConfig. It
      * first checks if other is an instanceof TiltConfig. It returns
-     * true if both clockConfigs have the size and grid.
+     * true if both clockConfigs have the size and grid. Grids with
+     * different hashes are rejected without comparing them.
      * @param other the object being compared to with this
      * @return boolean that shows if this is equal to other
      */
     @Override
     public boolean equals(Object other) {
         if (other instanceof TiltConfig newOther) {
-            if (size != newOther.size) {
+            if (hash != newOther.hash || size != newOther.size) {
                 return false;
             }
             for (int row = 0; row < size; row++) {
@@ -347,13 +626,24 @@ public class TiltConfig implements Configuration {
     }
 
     /**
-     * Creates a hashcode by adding the hash code of size
-     * and the deep hash code of grid.
+     * Creates a hashcode from the Zobrist hash of the sliders,
+     * which is kept up to date as the board is tilted.
      * @return an int representing a hashcode
      */
     @Override
     public int hashCode() {
-        return Objects.hashCode(size) + Arrays.deepHashCode(grid);
+        return Zobrist.fold(hash);
+    }
+
+    /**
+     * The 64-bit Zobrist hash of the sliders. Configurations
+     * of the same board share a fingerprint only if their
+     * sliders are in the same places.
+     * @return the fingerprint of this config
+     */
+    @Override
+    public long fingerprint() {
+        return hash;
     }
 
     /**
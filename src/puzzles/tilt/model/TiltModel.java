@@ -1,19 +1,35 @@
 package puzzles.tilt.model;
 
+import puzzles.common.BoardLibrary;
+import puzzles.common.Dispatcher;
+import puzzles.common.History;
 import puzzles.common.Observer;
+import puzzles.common.Update;
 import puzzles.common.solver.Configuration;
-import puzzles.common.solver.Solver;
+import puzzles.common.solver.LayerListener;
+import puzzles.common.solver.SolutionCache;
+import puzzles.common.solver.SolveScheduler;
+import puzzles.common.solver.SolveScheduler.Priority;
 
 import java.io.*;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
 /** Implements the game rules for Tilt.
  */
-public class TiltModel {
-    /** the collection of observers of this model */
-    private final List<Observer<TiltModel, String>> observers = new LinkedList<>();
+public class TiltModel implements AutoCloseable {
+    /** delivers the model's announcements to its observers */
+    private final Dispatcher<TiltModel, Update> observers = new Dispatcher<>(Update::merge);
     public static String LOADED = "Loaded: ";
     /**
      * Message sent when a board has failed to load.
@@ -23,12 +39,40 @@ public class TiltModel {
      * The message that will precede a hint.
      */
     public static String HINT_PREFIX = "Next step!";
+    /**
+     * Message sent when a move has been undone.
+     */
+    public static String UNDONE = "Move undone.";
+    /**
+     * Message sent when an undone move has been made again.
+     */
+    public static String REDONE = "Move redone.";
 
     /** the current configuration */
-    private TiltConfig currentConfig;
+    private volatile TiltConfig currentConfig;
+    /** the moves made on the current board, which can be undone and redone */
+    private History<TiltConfig> history;
     /** the name of the current file **/
     private String file;
-
+    /** counts the changes to the board, so a hint worked out for an older board can be spotted */
+    private volatile int version;
+    /** runs the speculative solves at low priority, shared by every model */
+    private static final ExecutorService PRESOLVER = Executors.newCachedThreadPool(task -> {
+        Thread thread = new Thread(task, "tilt-presolve");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    /** whether a solve of the board is started in the background after every change */
+    private boolean speculative = true;
+    /** the solution path from the current board, being worked out in the background, or null */
+    private volatile Future<List<Configuration>> presolve;
+    /** whether the speculative solve has got its turn, rather than waiting behind other batch solves */
+    private volatile AtomicBoolean presolveStarted;
+    /** where the boards are loaded from */
+    private final BoardLibrary<TiltConfig> boards;
+    /** the solutions shared by everyone playing the current board, or null */
+    private volatile SolutionCache solutions;
 
     /**
      * Creates a new TiltConfig from the given filename.
@@ -37,8 +81,37 @@ public class TiltModel {
      * @throws IOException Handles the exception for creating a TiltConfig
      */
     public TiltModel(String filename) throws IOException {
-        currentConfig = new TiltConfig(filename);
+        this(filename, true);
+    }
+
+    /**
+     * Creates a new TiltConfig from the given filename, choosing whether
+     * boards are solved speculatively in the background.
+     * @param filename The name of the current file
+     * @param speculative whether to solve every board in the background
+     * @throws IOException Handles the exception for creating a TiltConfig
+     */
+    public TiltModel(String filename, boolean speculative) throws IOException {
+        this(filename, speculative, TiltConfig::new);
+    }
+
+    /**
+     * Creates a model whose boards come from a library, which may share
+     * them and their solutions with other models.
+     * @param filename The name of the current file
+     * @param speculative whether to solve every board in the background
+     * @param boards where the boards are loaded from
+     * @throws IOException Handles the exception for loading the board
+     */
+    public TiltModel(String filename, boolean speculative, BoardLibrary<TiltConfig> boards)
+            throws IOException {
+        this.boards = boards;
+        currentConfig = boards.board(filename);
+        history = History.of(currentConfig);
+        solutions = boards.solutions(filename);
         this.file = filename;
+        this.speculative = speculative;
+        boardChanged(null);
     }
 
     /**
@@ -119,11 +192,14 @@ public class TiltModel {
 
         }
         try {
-            currentConfig = new TiltConfig(filename);
-            announce(LOADED);
+            currentConfig = boards.board(filename);
+            history = History.of(currentConfig);
+            solutions = boards.solutions(filename);
+            boardChanged(null);
+            announce(LOADED, true);
         }
         catch (IOException e) {
-            announce(LOAD_FAILED);
+            announce(LOAD_FAILED, false);
         }
     }
 
@@ -139,8 +215,80 @@ public class TiltModel {
      *          was already solved, or that hint was successful
      */
     public String getHint() {
-        Solver solver = new Solver();
-        List<Configuration> path = solver.solve(currentConfig);
+        return applyHint(hintSearch(null).get());
+    }
+
+    /**
+     * Makes a search for a hint from the current board that can be run
+     * on another thread. The board is captured now, so tilting it while
+     * the search runs doesn't affect the search. If a speculative solve
+     * of the board is under way, the search waits for its result
+     * instead of starting over, and if the board's solutions are shared
+     * the search is only run if nobody has solved it yet. The search is
+     * an interactive solve of the shared SolveScheduler, so it may be
+     * rejected with a RejectedExecutionException when too many are
+     * waiting. It checks at the end of every
+     * layer whether its thread has been interrupted, and if it has it
+     * gives up by throwing a CancellationException.
+     * @param progress told about every layer of the search, or null
+     * @return the search, which returns the solution path
+     */
+    public Supplier<List<Configuration>> hintSearch(LayerListener progress) {
+        Future<List<Configuration>> known = presolve;
+        AtomicBoolean started = presolveStarted;
+        if (known != null && !known.isDone() && !started.get()) {
+            // still waiting behind other batch solves, so don't wait for it
+            known = null;
+        }
+        return search(progress, Priority.INTERACTIVE, known, null);
+    }
+
+    /**
+     * Makes a search from the current board. A TiltConfig never changes
+     * once it is made, so the search can expand the current one while
+     * other searches and the player use it.
+     * @param progress told about every layer of the search, or null
+     * @param priority the priority of the solve
+     * @param known the speculative solve to wait for, or null
+     * @param started set once the solve gets its turn, or null
+     * @return the search, which returns the solution path
+     */
+    private Supplier<List<Configuration>> search(LayerListener progress, Priority priority,
+                                                 Future<List<Configuration>> known,
+                                                 AtomicBoolean started) {
+        TiltConfig start = currentConfig;
+        SolutionCache cache = solutions;
+        return () -> {
+            if (known != null) {
+                try {
+                    return known.get();
+                }
+                catch (InterruptedException e) {
+                    throw new CancellationException("Hint cancelled");
+                }
+                catch (ExecutionException | CancellationException ignored) {
+
+                }
+            }
+            SolutionCache.Search solve = begun -> SolveScheduler.shared().solve(priority, start, progress, () -> {
+                begun.run();
+                if (started != null) {
+                    started.set(true);
+                }
+            });
+            return cache == null ? solve.search(() -> {}) : cache.solve(start, solve);
+        };
+    }
+
+    /**
+     * Advances the puzzle to the next step of a solution path found by
+     * a hint search, the same way getHint does. The path must have been
+     * found for the current board.
+     * @param path the solution path from the current board
+     * @return a message corresponding to if the board has no solution,
+     *          was already solved, or that hint was successful
+     */
+    public String applyHint(List<Configuration> path) {
         String msg = "";
         if (path.isEmpty()) {
             msg = "No solution!";
@@ -150,11 +298,70 @@ public class TiltModel {
         }
         else {
             currentConfig = (TiltConfig) path.get(1);
-            announce(HINT_PREFIX);
+            history = history.move(currentConfig);
+            boardChanged(new LinkedList<>(path.subList(1, path.size())));
+            announce(HINT_PREFIX, true);
         }
         return msg;
     }
 
+    /**
+     * Turns the speculative solving on or off. When it is on, a solve of
+     * the board is started on a low priority background thread after
+     * every change, so a hint asked for a little later is already known.
+     * Turning it off cancels the solve that is running.
+     * @param speculative whether to solve every board in the background
+     */
+    public void setSpeculative(boolean speculative) {
+        this.speculative = speculative;
+        if (!speculative && presolve != null) {
+            presolve.cancel(true);
+            presolve = null;
+        }
+    }
+
+    /**
+     * Stops solving in the background, once the model isn't needed any
+     * more. It can still be played, but boards aren't solved speculatively.
+     */
+    @Override
+    public void close() {
+        setSpeculative(false);
+    }
+
+    /**
+     * Counts a change to the board and replaces the speculative solve of
+     * the old board, cancelling it if it is still running.
+     * @param path a solution path from the new board if one is already
+     *             known, otherwise null to start solving it in the
+     *             background
+     */
+    private void boardChanged(List<Configuration> path) {
+        version++;
+        if (presolve != null) {
+            presolve.cancel(true);
+            presolve = null;
+        }
+        if (path != null) {
+            presolve = CompletableFuture.completedFuture(path);
+        }
+        else if (speculative) {
+            AtomicBoolean started = new AtomicBoolean();
+            Supplier<List<Configuration>> search = search(null, Priority.BATCH, null, started);
+            presolveStarted = started;
+            presolve = PRESOLVER.submit(search::get);
+        }
+    }
+
+    /**
+     * The number of times the board has changed, so a view can tell
+     * whether a hint it asked for is still for the current board.
+     * @return the version of the board
+     */
+    public int getVersion() {
+        return version;
+    }
+
     /**
      * Tilts the board by using the methods up(), down(),
      * left(), and right() in the TiltConfig class.
@@ -201,18 +408,116 @@ public class TiltModel {
                 return false;
             }
         }
-        alertObservers("");
+        history = history.move(currentConfig);
+        boardChanged(null);
+        alertObservers();
         return true;
     }
 
     /**
-     * Announce to observers the model has changed
-     * @param arg A message
+     * Applies a sequence of tilts given as one letter per move out of N,
+     * S, E and W, in either case, such as "NNESW". The moves are made one
+     * after another without notifying the observers in between. It stops
+     * at the first move that isn't legal, keeping the moves before it, and
+     * the observers are notified once at the end if any move was made.
+     * @param moves the moves
+     * @return the index of the first illegal move, or -1 if every move
+     *          was made
      */
-    private void announce(String arg) {
-        for ( var obs : this.observers ) {
-            obs.update( this, arg );
+    public int applyMoves(CharSequence moves) {
+        TiltConfig config = currentConfig;
+        History<TiltConfig> moved = history;
+        int illegal = -1;
+        for (int i = 0; i < moves.length() && illegal < 0; i++) {
+            TiltConfig next = switch (Character.toUpperCase(moves.charAt(i))) {
+                case 'N' -> (TiltConfig) config.up();
+                case 'S' -> (TiltConfig) config.down();
+                case 'E' -> (TiltConfig) config.right();
+                case 'W' -> (TiltConfig) config.left();
+                default -> null;
+            };
+            if (next == null) {
+                illegal = i;
+            }
+            else {
+                config = next;
+                moved = moved.move(next);
+            }
+        }
+        if (config != currentConfig) {
+            currentConfig = config;
+            history = moved;
+            boardChanged(null);
+            alertObservers();
         }
+        return illegal;
+    }
+
+    /**
+     * Undoes the last move, whether it was a tilt, a hint or a reset,
+     * and announces UNDONE. The board isn't reloaded.
+     * @return false if there was no move to undo
+     */
+    public boolean undo() {
+        if (!history.canUndo()) {
+            return false;
+        }
+        history = history.undo();
+        currentConfig = history.current();
+        boardChanged(null);
+        announce(UNDONE, true);
+        return true;
+    }
+
+    /**
+     * Makes the last undone move again and announces REDONE.
+     * @return false if there was no undone move to redo
+     */
+    public boolean redo() {
+        if (!history.canRedo()) {
+            return false;
+        }
+        history = history.redo();
+        currentConfig = history.current();
+        boardChanged(null);
+        announce(REDONE, true);
+        return true;
+    }
+
+    /**
+     * Puts the board back the way it was loaded, without reading the
+     * file again, and announces LOADED. The reset can be undone.
+     */
+    public void reset() {
+        history = history.reset();
+        currentConfig = history.current();
+        boardChanged(null);
+        announce(LOADED, true);
+    }
+
+    /**
+     * Whether there is a move to undo.
+     * @return true if undo would change the board
+     */
+    public boolean canUndo() {
+        return history.canUndo();
+    }
+
+    /**
+     * Whether there is an undone move to redo.
+     * @return true if redo would change the board
+     */
+    public boolean canRedo() {
+        return history.canRedo();
+    }
+
+    /**
+     * Announce to observers the model has changed
+     * @param message A message
+     * @param boardChanged whether the board has changed and has to be redrawn
+     */
+    private void announce(String message, boolean boardChanged) {
+        observers.dispatch(this, new Update(message, boardChanged));
     }
 
     /**
@@ -220,17 +525,28 @@ public class TiltModel {
      *
      * @param observer the view
      */
-    public void addObserver(Observer<TiltModel, String> observer) {
-        this.observers.add(observer);
+    public void addObserver(Observer<TiltModel, Update> observer) {
+        this.observers.addObserver(observer);
+    }
+
+    /**
+     * A view calls this to add itself as an observer that is updated on
+     * its own executor, such as the JavaFX Application Thread. Updates
+     * that arrive before the executor gets to them are merged with the
+     * next one unless both carry a message, so every message is delivered.
+     *
+     * @param observer the view
+     * @param executor runs the view's updates
+     */
+    public void addObserver(Observer<TiltModel, Update> observer, Executor executor) {
+        this.observers.addObserver(observer, executor);
     }
 
     /**
      * The model's state has changed (the counter), so inform the view via
      * the update method
      */
-    private void alertObservers(String data) {
-        for (var observer : observers) {
-            observer.update(this, data);
-        }
+    private void alertObservers() {
+        observers.dispatch(this, Update.REDRAW);
     }
 }
@@ -0,0 +1,146 @@
+package puzzles.tilt.model;
+
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.Heuristic;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * A pattern database for the static layout of a Tilt board (its blockers
+ * and hole). It solves the single-slider abstraction of the puzzle: one
+ * slider alone on the board that, on each tilt, may stop on any cell of the
+ * blocker-free line ahead of it and drops out if that line runs over the
+ * hole. Every real tilt moves each green slider along such a line (other
+ * sliders can only make it stop sooner), so the exact cost of the
+ * abstraction is a lower bound for every green. The table stores that cost
+ * for every cell in one byte, and the heuristic is the largest cost among
+ * the greens on the board.
+ *
+ * Sliders can't be folded into the layout (for example blues treated as
+ * blockers) because they move with every tilt, which would make the
+ * estimate overshoot.
+ */
+public class TiltPatternDatabase implements Heuristic {
+    /** The table value of a cell that can't reach the hole **/
+    public final static int UNREACHABLE = 255;
+    /** The blocker symbol **/
+    private final static char BLOCKER = '*';
+    /** The hole symbol **/
+    private final static char HOLE = 'O';
+    /** The green slider symbol **/
+    private final static char GREEN = 'G';
+    /** The empty symbol **/
+    private final static char EMPTY = '.';
+    /** The row and column steps of the four tilts **/
+    private final static int[][] DIRECTIONS = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+
+    /** The amount of size/column on the grid **/
+    private final int size;
+    /** The static layout, row by row: blockers, the hole and empty cells **/
+    private final char[] layout;
+    /** The number of tilts from each cell to the hole, row by row **/
+    private final byte[] distances;
+
+    /**
+     * Builds the table for the layout of the given board.
+     * @param board A config of the board, its sliders are ignored
+     */
+    public TiltPatternDatabase(TiltConfig board) {
+        this.size = board.getSize();
+        this.layout = layoutOf(board);
+        this.distances = new byte[size * size];
+        Arrays.fill(distances, (byte) UNREACHABLE);
+        build();
+    }
+
+    /**
+     * Gets the static layout of a board, with every slider
+     * replaced by an empty cell.
+     * @param board The config of the board
+     * @return the layout, row by row
+     */
+    private static char[] layoutOf(TiltConfig board) {
+        int size = board.getSize();
+        char[] layout = new char[size * size];
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                char symbol = board.getGridValue(row, col);
+                layout[row * size + col] = symbol == BLOCKER || symbol == HOLE ? symbol : EMPTY;
+            }
+        }
+        return layout;
+    }
+
+    /**
+     * Fills in the table with a backwards BFS from the hole. A cell
+     * is one tilt before another if the straight line between them
+     * has no blocker or hole on it.
+     */
+    private void build() {
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int cell = 0; cell < layout.length; cell++) {
+            if (layout[cell] == HOLE) {
+                distances[cell] = 0;
+                queue.add(cell);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int cell = queue.remove();
+            int next = (distances[cell] & 0xff) + 1;
+            if (next >= UNREACHABLE) {
+                continue;
+            }
+            for (int[] direction : DIRECTIONS) {
+                int row = cell / size - direction[0];
+                int col = cell % size - direction[1];
+                while (row >= 0 && row < size && col >= 0 && col < size
+                        && layout[row * size + col] == EMPTY) {
+                    int before = row * size + col;
+                    if ((distances[before] & 0xff) == UNREACHABLE) {
+                        distances[before] = (byte) next;
+                        queue.add(before);
+                    }
+                    row -= direction[0];
+                    col -= direction[1];
+                }
+            }
+        }
+    }
+
+    /**
+     * The number of tilts a lone slider on the cell needs
+     * to drop into the hole.
+     * @param row The specific row
+     * @param col The specific column
+     * @return the distance, or UNREACHABLE
+     */
+    public int distance(int row, int col) {
+        return distances[row * size + col] & 0xff;
+    }
+
+    /**
+     * Estimates the tilts left as the largest distance of any
+     * green slider on the board.
+     * @param config The TiltConfig to estimate
+     * @return the estimate, or Heuristic.UNREACHABLE if a green
+     *          slider can never reach the hole
+     */
+    @Override
+    public int estimate(Configuration config) {
+        TiltConfig tilt = (TiltConfig) config;
+        int estimate = 0;
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                if (tilt.getGridValue(row, col) == GREEN) {
+                    int distance = distance(row, col);
+                    if (distance == UNREACHABLE) {
+                        return Heuristic.UNREACHABLE;
+                    }
+                    estimate = Math.max(estimate, distance);
+                }
+            }
+        }
+        return estimate;
+    }
+}
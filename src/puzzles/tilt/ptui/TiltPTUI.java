@@ -1,21 +1,32 @@
 package puzzles.tilt.ptui;
 
 import puzzles.common.Observer;
+import puzzles.common.Update;
 import puzzles.tilt.model.TiltModel;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
 import java.util.Objects;
 import java.util.Scanner;
 
 /**
  * A text user interface for Tilt
  */
-public class TiltPTUI implements Observer<TiltModel, String> {
+public class TiltPTUI implements Observer<TiltModel, Update> {
     /** The tilt model **/
     private TiltModel model;
+    /** The help message listing the commands **/
+    private static final String HELP = "h(int)              -- hint next move\n" +
+            "l(oad) filename     -- load new puzzle file\n" +
+            "t(ilt) {N|S|E|W}    -- tilt the board in the given direction\n" +
+            "q(uit)              -- quit the game\n" +
+            "r(eset)             -- reset the current game";
     /** The scanner that takes in user inputs **/
-    private static Scanner in;
+    private final Scanner in;
+    /** Where everything is printed **/
+    private final PrintStream out;
     /** The boolean for if the game is on **/
     private boolean gameOn;
     /** The file of the tilt puzzle **/
@@ -27,45 +38,46 @@ public class TiltPTUI implements Observer<TiltModel, String> {
      * board.
      * @param model the object that wishes to inform this object
      *                about something that has happened.
-     * @param message optional data the server.model can send to the observer
+     * @param update the message, and whether the board has changed
      *
      */
     @Override
-    public void update(TiltModel model, String message) {
+    public void update(TiltModel model, Update update) {
+        String message = update.message();
         if (message.equals(TiltModel.LOADED)) {
             if (gameOn) {
-                System.out.println(message + file);
+                out.println(message + file);
             }
             displayBoard();
             if (gameOn) {
-                System.out.println();
+                out.println();
             }
             return;
         }
         else if (message.equals(TiltModel.LOAD_FAILED)) {
             if (gameOn) {
-                System.out.println(message + ": " + file);
+                out.println(message + ": " + file);
             }
             displayBoard();
             if (gameOn) {
-                System.out.println();
+                out.println();
             }
             return;
         }
         else if (message.startsWith(TiltModel.HINT_PREFIX)) {
-            System.out.println(message);
+            out.println(message);
             displayBoard();
-            System.out.println();
+            out.println();
             return;
         }
 
         if (model.gameOver()) {
             displayBoard();
-            System.out.println("You win!");
+            out.println("You win!");
             return;
         }
         displayBoard();
-        System.out.print(message);
+        out.print(message);
     }
 
     /**
@@ -74,29 +86,59 @@ public class TiltPTUI implements Observer<TiltModel, String> {
      * @throws IOException handles the exception for when TiltModel is made
      */
     public TiltPTUI(String argsFile) throws IOException {
-        model = new TiltModel(argsFile);
+        this(argsFile, System.in, System.out, true);
+    }
+
+    /**
+     * The Text UI for Tilt, reading commands from and printing to the given
+     * streams, so it can also be run from a script.
+     * @param argsFile the initial puzzle file
+     * @param input where the commands are read from
+     * @param output where everything is printed
+     * @param speculative whether the model solves every board in the background
+     * @throws IOException handles the exception for when TiltModel is made
+     */
+    public TiltPTUI(String argsFile, InputStream input, PrintStream output, boolean speculative)
+            throws IOException {
+        model = new TiltModel(argsFile, speculative);
         file = argsFile;
         model.addObserver(this);
         gameOn = false;
-        in = new Scanner(System.in);
+        in = new Scanner(input);
+        out = output;
     }
 
     /**
      * The main program loop. Keeps getting user input until
-     * the user quits
+     * the user quits or the input runs out.
      * @param argsFile the initial puzzle file
      * @param reset boolean for whether the puzzle has been reset before
      */
     public void run(String argsFile, boolean reset) {
-        while (gameStart(argsFile, reset)) {
+        if (gameStart(argsFile, reset)) {
             gameLoop(reset);
         }
+        out.flush();
+    }
+
+    /**
+     * Runs a whole game from a script of commands without a console, the
+     * way the ScriptDriver does.
+     * @param argsFile the initial puzzle file
+     * @param input the commands
+     * @param output where everything is printed
+     * @throws IOException handles the exception for when TiltModel is made
+     */
+    public static void runScript(String argsFile, InputStream input, PrintStream output)
+            throws IOException {
+        new TiltPTUI(argsFile, input, output, false).run(argsFile, false);
     }
 
     /**
      * Checks if the file exists and prints a
      * loaded message if the puzzle has never been reset.
-     * If file exists, it returns true.
+     * If file exists, it returns true, otherwise the game
+     * can't start.
      * @param argsFile the initial puzzle file
      * @param reset boolean for whether the puzzle has been reset before
      * @return boolean for whether the game can start
@@ -104,14 +146,14 @@ public class TiltPTUI implements Observer<TiltModel, String> {
     public boolean gameStart(String argsFile, boolean reset) {
         File file = new File(argsFile);
         if (!file.exists()) {
-            System.out.println("File Not Found!");
-            System.exit(0);
+            out.println("File Not Found!");
+            return false;
         }
         if (!reset) {
-            System.out.println("Loaded: " + file);
+            out.println("Loaded: " + file);
         }
         displayBoard();
-        System.out.println();
+        out.println();
         gameOn = true;
         return true;
     }
@@ -120,33 +162,33 @@ public class TiltPTUI implements Observer<TiltModel, String> {
      * Handles the actual game play. It gets user input in order to tell
      * if the next move is hint, load file, tilt, quit, or reset. It calls
      * the corresponding method in tiltModel and prints corresponding messages
-     * based on the input.
+     * based on the input. An invalid command prints the help again. It
+     * returns when the user quits or the input runs out.
      * @param reset boolean for whether the puzzle has been reset before
      */
     public void gameLoop(boolean reset) {
-        String msg;
         if (!reset) {
-            System.out.println("h(int)              -- hint next move\n" +
-                    "l(oad) filename     -- load new puzzle file\n" +
-                    "t(ilt) {N|S|E|W}    -- tilt the board in the given direction\n" +
-                    "q(uit)              -- quit the game\n" +
-                    "r(eset)             -- reset the current game");
+            out.println(HELP);
         }
         while (gameOn) {
-            msg = "";
-            System.out.print("> ");
-            String command = "";
-            command = in.nextLine().strip();
+            out.print("> ");
+            out.flush();
+            if (!in.hasNextLine()) {
+                gameOn = false;
+                return;
+            }
+            String command = in.nextLine().strip();
 
             if (command.equalsIgnoreCase("q") || command.equalsIgnoreCase("quit")) {
-                System.exit(0);
+                gameOn = false;
+                return;
             }
             else if (command.equalsIgnoreCase("h") || command.equalsIgnoreCase("hint")) {
                 String message = model.getHint();
                 if (!Objects.equals(message, "")) {
-                    System.out.println(message);
+                    out.println(message);
                     displayBoard();
-                    System.out.println();
+                    out.println();
                 }
             }
             else if (command.toLowerCase().contains("l ") || command.equalsIgnoreCase("load")) {
@@ -154,35 +196,24 @@ public class TiltPTUI implements Observer<TiltModel, String> {
             }
             else if (command.toLowerCase().contains("t ") || command.toLowerCase().contains("tilt")) {
                 if (model.gameOver()) {
-                    System.out.println("Already solved!");
+                    out.println("Already solved!");
                     displayBoard();
                 }
                 else if (!model.tilt(command)) {
-                    System.out.println("Illegal move. A blue slider will fall through the hole!");
+                    out.println("Illegal move. A blue slider will fall through the hole!");
                     displayBoard();
                 }
-                System.out.println();
+                out.println();
             }
             else if (command.equalsIgnoreCase("r") || command.toLowerCase().contains("reset")) {
-                System.out.println("Puzzle reset!");
+                out.println("Puzzle reset!");
                 gameOn = false;
-                model.loadBoardFromFile(file);
+                model.reset();
                 gameOn = true;
-                System.out.println();
+                out.println();
             }
             else {
-                msg = "Enter a valid command";
-            }
-
-            if (!msg.isEmpty()) {
-                if (reset) {
-                    System.out.println("h(int)              -- hint next move\n" +
-                            "l(oad) filename     -- load new puzzle file\n" +
-                            "t(ilt) {N|S|E|W}    -- tilt the board in the given direction\n" +
-                            "q(uit)              -- quit the game\n" +
-                            "r(eset)             -- reset the current game");
-                }
-                gameLoop(reset);
+                out.println(HELP);
             }
         }
     }
@@ -200,7 +231,7 @@ public class TiltPTUI implements Observer<TiltModel, String> {
      * Displays the current board.
      */
     public void displayBoard() {
-        System.out.println(model.getGrid());
+        out.println(model.getGrid());
     }
 
     /**
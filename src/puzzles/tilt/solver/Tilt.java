@@ -1,8 +1,10 @@
 package puzzles.tilt.solver;
 
+import puzzles.common.solver.AStarSolver;
 import puzzles.common.solver.Configuration;
 import puzzles.common.solver.Solver;
 import puzzles.tilt.model.TiltConfig;
+import puzzles.tilt.model.TiltPatternDatabase;
 
 import java.io.IOException;
 import java.util.List;
@@ -14,17 +16,18 @@ public class Tilt {
     /**
      * Run an instance of the tilt puzzle.
      *
-     * @param args the filename of the tilt puzzle
+     * @param args the filename of the tilt puzzle, optionally followed by
+     *             "astar" to search with A* and the board's pattern database
      * @throws IOException handles an exception when making a TiltConfig
      */
     public static void main(String[] args) throws IOException {
-        if (args.length != 1) {
-            System.out.println("Usage: java Tilt filename");
+        if (args.length != 1 && (args.length != 2 || !args[1].equals("astar"))) {
+            System.out.println("Usage: java Tilt filename [astar]");
         }
         else {
-            Configuration tilt = new TiltConfig(args[0]);
+            TiltConfig tilt = new TiltConfig(args[0]);
             System.out.println(tilt);
-            Solver solver = new Solver();
+            Solver solver = args.length == 2 ? new AStarSolver(new TiltPatternDatabase(tilt)) : new Solver();
             List<Configuration> path = solver.solve(tilt);
             if (path.isEmpty()){
                 System.out.println("No solution");
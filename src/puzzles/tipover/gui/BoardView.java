@@ -0,0 +1,284 @@
+package puzzles.tipover.gui;
+
+import javafx.animation.AnimationTimer;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+import puzzles.common.Coordinates;
+import puzzles.tipover.model.TipOverModel;
+
+/**
+ * Draws a Tip Over board on a canvas, so boards far too big for a node per cell stay responsive.
+ * Only the cells inside the viewport are drawn. The board is zoomed with the scroll wheel around
+ * the mouse and panned by dragging. After a move, only the cells whose number changed and the old
+ * and new tipper cells are redrawn. All drawing happens at most once per pulse.
+ */
+public class BoardView extends Pane {
+    /** The width of a cell at a zoom of 1 */
+    public static final double CELL_WIDTH = 40;
+    /** The height of a cell at a zoom of 1 */
+    public static final double CELL_HEIGHT = 75;
+    /** The smallest zoom */
+    private static final double MIN_ZOOM = 0.05;
+    /** The largest zoom */
+    private static final double MAX_ZOOM = 4;
+    /** How much one step of the scroll wheel zooms */
+    private static final double ZOOM_STEP = 1.1;
+    /** Cells smaller than this many pixels across are drawn without their number */
+    private static final double MIN_TEXT_SIZE = 10;
+    /** The color of the goal */
+    private static final Color GOAL = Color.CRIMSON;
+    /** The color of the tipper */
+    private static final Color TIPPER = Color.PINK;
+    /** The color of every other cell */
+    private static final Color DEFAULT = Color.WHITE;
+    /** The color around the board */
+    private static final Color BACKGROUND = Color.LAVENDERBLUSH;
+
+    /** the model of the board being drawn */
+    private final TipOverModel model;
+    /** the canvas the board is drawn on, always the size of the view */
+    private final Canvas canvas = new Canvas();
+    /** the number each cell was last drawn with, or null before the board has been drawn */
+    private int[][] shown;
+    /** the tipper position the board was last drawn with */
+    private Coordinates shownTipper;
+    /** the zoom, 1 for the sizes of the old labels */
+    private double zoom = 1;
+    /** where the left edge of the board is on the canvas */
+    private double offsetX;
+    /** where the top edge of the board is on the canvas */
+    private double offsetY;
+    /** where the mouse was across the view at the last drag event */
+    private double dragX;
+    /** where the mouse was down the view at the last drag event */
+    private double dragY;
+    /** whether the whole viewport needs to be drawn again */
+    private boolean fullRedraw = true;
+    /** whether the model has changed since the board was last compared with it */
+    private boolean changed;
+    /** draws whatever needs drawing once per pulse */
+    private final AnimationTimer renderer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            render();
+        }
+    };
+
+    /**
+     * Creates a view of the model's board.
+     *
+     * @param model the model to draw
+     */
+    public BoardView(TipOverModel model){
+        this.model = model;
+        getChildren().add(canvas);
+        canvas.widthProperty().bind(widthProperty());
+        canvas.heightProperty().bind(heightProperty());
+        canvas.widthProperty().addListener((obs, before, after) -> fullRedraw = true);
+        canvas.heightProperty().addListener((obs, before, after) -> fullRedraw = true);
+
+        setOnScroll(event -> {
+            double factor = event.getDeltaY() > 0 ? ZOOM_STEP : 1 / ZOOM_STEP;
+            zoomAround(event.getX(), event.getY(), factor);
+            event.consume();
+        });
+        setOnMousePressed(event -> {
+            dragX = event.getX();
+            dragY = event.getY();
+        });
+        setOnMouseDragged(event -> {
+            offsetX += event.getX() - dragX;
+            offsetY += event.getY() - dragY;
+            dragX = event.getX();
+            dragY = event.getY();
+            fullRedraw = true;
+        });
+        renderer.start();
+    }
+
+    /**
+     * Marks the board as changed. It is compared with the model and the changed cells are redrawn
+     * at the next pulse.
+     */
+    public void refresh(){
+        changed = true;
+    }
+
+    /**
+     * Zooms so the whole board fits the viewport, but never past a zoom of 1, and puts the board
+     * back in the top left corner.
+     *
+     * @param width the width of the viewport
+     * @param height the height of the viewport
+     */
+    public void fit(double width, double height){
+        double fitZoom = Math.min(width / (CELL_WIDTH * model.getCols()),
+                height / (CELL_HEIGHT * model.getRows()));
+        zoom = Math.max(MIN_ZOOM, Math.min(1, fitZoom));
+        offsetX = 0;
+        offsetY = 0;
+        fullRedraw = true;
+    }
+
+    /**
+     * Stops drawing, once the view isn't needed any more.
+     */
+    public void stop(){
+        renderer.stop();
+    }
+
+    /**
+     * Zooms in or out keeping the point under the mouse where it is.
+     *
+     * @param x where the mouse is across the view
+     * @param y where the mouse is down the view
+     * @param factor how much to multiply the zoom by
+     */
+    private void zoomAround(double x, double y, double factor){
+        double newZoom = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, zoom * factor));
+        double applied = newZoom / zoom;
+        offsetX = x - (x - offsetX) * applied;
+        offsetY = y - (y - offsetY) * applied;
+        zoom = newZoom;
+        fullRedraw = true;
+    }
+
+    /**
+     * Draws what has to be drawn: the whole viewport after a zoom, pan, resize or a board of a
+     * different size, otherwise only the cells that differ from the model.
+     */
+    private void render(){
+        int rows = model.getRows();
+        int cols = model.getCols();
+        if (shown == null || shown.length != rows || shown[0].length != cols){
+            shown = new int[rows][cols];
+            fullRedraw = true;
+        }
+        if (fullRedraw){
+            fullRedraw = false;
+            changed = false;
+            drawViewport();
+        }
+        else if (changed){
+            changed = false;
+            drawChanges();
+        }
+    }
+
+    /**
+     * Clears the canvas and draws every cell that can be seen.
+     */
+    private void drawViewport(){
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        gc.setFill(BACKGROUND);
+        gc.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        prepareText(gc);
+        shownTipper = model.getTipper();
+        int rows = model.getRows();
+        int cols = model.getCols();
+        int firstRow = Math.max(0, (int) Math.floor(-offsetY / cellHeight()));
+        int lastRow = Math.min(rows - 1, (int) Math.floor((canvas.getHeight() - offsetY) / cellHeight()));
+        int firstCol = Math.max(0, (int) Math.floor(-offsetX / cellWidth()));
+        int lastCol = Math.min(cols - 1, (int) Math.floor((canvas.getWidth() - offsetX) / cellWidth()));
+        for (int i = 0; i < rows; i++){
+            for (int g = 0; g < cols; g++){
+                shown[i][g] = model.gridValue(i, g);
+            }
+        }
+        for (int i = firstRow; i <= lastRow; i++){
+            for (int g = firstCol; g <= lastCol; g++){
+                drawCell(gc, i, g);
+            }
+        }
+    }
+
+    /**
+     * Redraws the cells whose number changed since they were drawn, and the cells the tipper left
+     * and moved to. Changed cells outside the viewport are only recorded.
+     */
+    private void drawChanges(){
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        prepareText(gc);
+        Coordinates before = shownTipper;
+        shownTipper = model.getTipper();
+        for (int i = 0; i < shown.length; i++){
+            for (int g = 0; g < shown[i].length; g++){
+                int num = model.gridValue(i, g);
+                if (num != shown[i][g]){
+                    shown[i][g] = num;
+                    drawCell(gc, i, g);
+                }
+            }
+        }
+        if (before != null && !before.equals(shownTipper)){
+            drawCell(gc, before.row(), before.col());
+            drawCell(gc, shownTipper.row(), shownTipper.col());
+        }
+    }
+
+    /**
+     * Sets up the font for the numbers of the cells at the current zoom.
+     *
+     * @param gc the canvas' graphics context
+     */
+    private void prepareText(GraphicsContext gc){
+        gc.setFont(Font.font(50 * zoom));
+        gc.setTextAlign(TextAlignment.CENTER);
+        gc.setTextBaseline(VPos.CENTER);
+    }
+
+    /**
+     * Draws one cell, if any of it is in the viewport. The font must have been prepared.
+     *
+     * @param gc the canvas' graphics context
+     * @param row the row of the cell
+     * @param col the column of the cell
+     */
+    private void drawCell(GraphicsContext gc, int row, int col){
+        double width = cellWidth();
+        double height = cellHeight();
+        double x = offsetX + col * width;
+        double y = offsetY + row * height;
+        if (x + width < 0 || y + height < 0 || x > canvas.getWidth() || y > canvas.getHeight()){
+            return;
+        }
+        Coordinates goal = model.getGoal();
+        if (row == shownTipper.row() && col == shownTipper.col()){
+            gc.setFill(TIPPER);
+        }
+        else if (row == goal.row() && col == goal.col()){
+            gc.setFill(GOAL);
+        }
+        else{
+            gc.setFill(DEFAULT);
+        }
+        gc.fillRect(x, y, width, height);
+        if (width >= MIN_TEXT_SIZE){
+            gc.setFill(Color.BLACK);
+            gc.fillText(String.valueOf(shown[row][col]), x + width / 2, y + height / 2);
+        }
+    }
+
+    /**
+     * The width of a cell at the current zoom.
+     *
+     * @return the width in pixels
+     */
+    private double cellWidth(){
+        return CELL_WIDTH * zoom;
+    }
+
+    /**
+     * The height of a cell at the current zoom.
+     *
+     * @return the height in pixels
+     */
+    private double cellHeight(){
+        return CELL_HEIGHT * zoom;
+    }
+}
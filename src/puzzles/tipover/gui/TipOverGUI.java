@@ -1,11 +1,13 @@
 package puzzles.tipover.gui;
 
+import javafx.application.Platform;
 import javafx.geometry.*;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.stage.FileChooser;
-import puzzles.common.Coordinates;
 import puzzles.common.Observer;
+import puzzles.common.Update;
+import puzzles.common.solver.Configuration;
 import puzzles.tipover.model.TipOverModel;
 
 import javafx.application.Application;
@@ -15,7 +17,13 @@ import javafx.scene.control.Button;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 /**
  *  The GUI for the Tip over game. Creates a board with towers and crates in the representation of numbers. Highlights
@@ -25,23 +33,35 @@ import java.util.Objects;
  * @author Jaden Vo
  */
 
-public class TipOverGUI extends Application implements Observer<TipOverModel, String> {
-    /** Holds the background color for the goal */
-    private static String GOAL = "-fx-background-color: CRIMSON; -fx-font-size: 50;";
-    /** Holds the background color for the tipper */
-    private static String TIPPER = "-fx-background-color: PINK; -fx-font-size: 50;";
-    /** Holds the background color for everything else */
-    private static String DEFAULT = "-fx-background-color: WHITE; -fx-font-size: 50;";
+public class TipOverGUI extends Application implements Observer<TipOverModel, Update> {
+    /** The widest the board's viewport starts out, bigger boards are zoomed out to fit */
+    private static final double MAX_VIEW_WIDTH = 1000;
+    /** The tallest the board's viewport starts out, bigger boards are zoomed out to fit */
+    private static final double MAX_VIEW_HEIGHT = 750;
     /** the tip over model */
     private TipOverModel model;
-    /** the gridpane containing the board */
-    private GridPane board;
+    /** the canvas the board is drawn on */
+    private BoardView board;
     /** holds the message */
     private Label message;
     /** stage */
     private Stage stage;
     /** the main border pane */
     private BorderPane borderPane;
+    /** runs the hint searches so the window doesn't freeze while they run */
+    private final ExecutorService hintExecutor = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "tipover-hint");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /** the hint search that is running, or null */
+    private Future<?> hintTask;
+    /** the hint button, disabled while a hint search is running */
+    private Button hint;
+    /** spins while a hint search is running */
+    private ProgressIndicator hintProgress;
+    /** stops the hint search that is running */
+    private Button cancelHint;
 
     /**
      * Initializes the GUI
@@ -51,7 +71,7 @@ public class TipOverGUI extends Application implements Observer<TipOverModel, St
     public void init() throws IOException {
         String filename = getParameters().getRaw().get(0);
         this.model = new TipOverModel(filename);
-        this.model.addObserver(this);
+        this.model.addObserver(this, Platform::runLater);
     }
 
     /**
@@ -78,28 +98,9 @@ public class TipOverGUI extends Application implements Observer<TipOverModel, St
         message.setPadding(new Insets(15));
         borderPane.setTop(message);
 
-        //GridPane
-        board = new GridPane();
-        for(int i = 0; i < model.getRows(); i++){
-            for (int g = 0; g < model.getCols(); g++){
-                int num = model.gridValue(i, g);
-                Coordinates thisNum = new Coordinates(i, g);
-                Label numbers = new Label(String.valueOf(num));
-                if (thisNum.equals(this.model.getTipper())){
-                    numbers.setStyle(TIPPER);
-                }
-                else if (thisNum.equals(this.model.getGoal())){
-                    numbers.setStyle(GOAL);
-                }
-                else{
-                    numbers.setStyle(DEFAULT);
-                }
-                numbers.setAlignment(Pos.CENTER);
-                numbers.setMinSize(40, 75);
-                board.add(numbers, g, i);
-            }
-        }
-        board.setAlignment(Pos.CENTER);
+        //Board
+        board = new BoardView(model);
+        sizeBoard();
         borderPane.setCenter(board);
 
         //Border pane containing buttons on the right
@@ -147,11 +148,31 @@ public class TipOverGUI extends Application implements Observer<TipOverModel, St
         reset.setMinSize(100, 35);
         reset.setStyle("-fx-font-size: 20; -fx-font-weight: bold; -fx-background-color: LIGHTSTEELBLUE; -fx-borderwidth 1; -fx-border-color: BLACK;");
 
-        Button hint = new Button("Hint");
+        Button undo = new Button("Undo");
+        undo.setMinSize(100, 35);
+        undo.setStyle("-fx-font-size: 20; -fx-font-weight: bold; -fx-background-color: LIGHTSTEELBLUE; -fx-borderwidth 1; -fx-border-color: BLACK;");
+
+        Button redo = new Button("Redo");
+        redo.setMinSize(100, 35);
+        redo.setStyle("-fx-font-size: 20; -fx-font-weight: bold; -fx-background-color: LIGHTSTEELBLUE; -fx-borderwidth 1; -fx-border-color: BLACK;");
+
+        hint = new Button("Hint");
         hint.setMinSize(100, 35);
         hint.setStyle("-fx-font-size: 20; -fx-font-weight: bold; -fx-background-color: LIGHTSTEELBLUE; -fx-borderwidth 1; -fx-border-color: BLACK;");
 
-        uiButtons.getChildren().addAll(load, reset, hint);
+        //Shown only while a hint is being searched for
+        hintProgress = new ProgressIndicator();
+        hintProgress.setMaxSize(35, 35);
+        hintProgress.managedProperty().bind(hintProgress.visibleProperty());
+        hintProgress.setVisible(false);
+
+        cancelHint = new Button("Cancel");
+        cancelHint.setMinSize(100, 35);
+        cancelHint.setStyle("-fx-font-size: 15; -fx-font-weight: bold; -fx-background-color: LIGHTSTEELBLUE; -fx-borderwidth 1; -fx-border-color: BLACK;");
+        cancelHint.managedProperty().bind(cancelHint.visibleProperty());
+        cancelHint.setVisible(false);
+
+        uiButtons.getChildren().addAll(load, reset, undo, redo, hint, hintProgress, cancelHint);
         uiButtons.setSpacing(15);
         uiButtons.setPadding(new Insets(15));
         uiButtons.setAlignment(Pos.CENTER);
@@ -161,6 +182,7 @@ public class TipOverGUI extends Application implements Observer<TipOverModel, St
 
         //EVENTS
         load.setOnAction((event -> {
+            cancelHint();
             FileChooser fileChooser = new FileChooser();
             fileChooser.setTitle("Load a game board.");
             File selectedFile = fileChooser.showOpenDialog(stage);
@@ -168,32 +190,51 @@ public class TipOverGUI extends Application implements Observer<TipOverModel, St
         }));
 
         reset.setOnAction((event -> {
-            model.loadBoardFromFile("data/tipover/" + model.getFile());
-            this.message.setText("Puzzle reset!");
+            cancelHint();
+            model.reset();
+            //Queued behind the update for the reset, so it isn't overwritten by it
+            Platform.runLater(() -> this.message.setText("Puzzle reset!"));
             displayGrid();
         }));
 
-        hint.setOnAction((event -> {
-            String message = model.getHint();
-            if (!Objects.equals(message, "")) {
-                this.message.setText(message);
-                displayGrid();
+        undo.setOnAction((event -> {
+            cancelHint();
+            if (!model.undo()){
+                this.message.setText("Nothing to undo.");
             }
         }));
 
+        redo.setOnAction((event -> {
+            cancelHint();
+            if (!model.redo()){
+                this.message.setText("Nothing to redo.");
+            }
+        }));
+
+        hint.setOnAction((event -> startHint()));
+
+        cancelHint.setOnAction((event -> {
+            cancelHint();
+            this.message.setText("Hint cancelled");
+        }));
+
         up.setOnAction((event -> {
+            cancelHint();
             model.tipOver("m n");
         }));
 
         down.setOnAction((event -> {
+            cancelHint();
             model.tipOver("m s");
         }));
 
         left.setOnAction((event -> {
+            cancelHint();
             model.tipOver("m w");
         }));
 
         right.setOnAction((event -> {
+            cancelHint();
             model.tipOver("m e");
         }));
 
@@ -201,8 +242,8 @@ public class TipOverGUI extends Application implements Observer<TipOverModel, St
         Scene scene = new Scene(borderPane);
         stage.setScene(scene);
         stage.setMinHeight(300);
-        stage.setWidth(40 * model.getCols() + 250);
-        stage.setHeight(75 * model.getRows() + 155);
+        stage.setWidth(viewWidth() + 250);
+        stage.setHeight(Math.max(viewHeight() + 155, 550));
         borderPane.setStyle("-fx-background-color: LAVENDERBLUSH;");
         stage.show();
     }
@@ -213,10 +254,11 @@ public class TipOverGUI extends Application implements Observer<TipOverModel, St
      *
      * @param tipOverModel the object that wishes to inform this object
      *                     about something that has happened.
-     * @param message      optional data the server.model can send to the observer
+     * @param update     the message, and whether the board has changed
      */
     @Override
-    public void update(TipOverModel tipOverModel, String message) {
+    public void update(TipOverModel tipOverModel, Update update) {
+        String message = update.message();
         if (message.equals(TipOverModel.SOLVED)){
             this.message.setText(message);
             displayGrid();
@@ -228,8 +270,9 @@ public class TipOverGUI extends Application implements Observer<TipOverModel, St
             return;
         }
         else if (message.equals(TipOverModel.LOAD)){
-            stage.setWidth(40 * model.getCols() + 250);
-            stage.setHeight(Math.max(75 * model.getRows() + 155, 450));
+            sizeBoard();
+            stage.setWidth(viewWidth() + 250);
+            stage.setHeight(Math.max(viewHeight() + 155, 550));
             this.message.setText(message + this.model.getFile());
             displayGrid();
             return;
@@ -246,6 +289,7 @@ public class TipOverGUI extends Application implements Observer<TipOverModel, St
         }
         else if(message.equals(TipOverModel.TIPMSG)){
             this.message.setText(message);
+            displayGrid();
             return;
         }
         else if (message.equals(TipOverModel.OFFBOARDMSG)){
@@ -268,31 +312,116 @@ public class TipOverGUI extends Application implements Observer<TipOverModel, St
     }
 
     /**
-     * Displays the grid to the user
+     * Starts searching for a hint on the hint executor, showing the progress indicator and the
+     * cancel button until it is done. The result is passed back to the JavaFX Application Thread
+     * and only used if the search is still the running one and the board hasn't changed since.
      */
-    public void displayGrid(){
-        board = new GridPane();
-        for (int i = 0; i < model.getRows(); i++){
-            for (int g = 0; g < model.getCols(); g++){
-                Coordinates current = new Coordinates (i, g);
-                int num = model.gridValue(i, g);
-                Label numbers = new Label(String.valueOf(num));
-                if (model.getTipper().equals(current)){
-                    numbers.setStyle(TIPPER);
-                }
-                else if (model.getGoal().equals(current)){
-                    numbers.setStyle(GOAL);
-                }
-                else{
-                    numbers.setStyle(DEFAULT);
-                }
-                numbers.setAlignment(Pos.CENTER);
-                numbers.setMinSize(40, 75);
-                board.add(numbers, g, i);
+    private void startHint(){
+        if (hintTask != null){
+            return;
+        }
+        int version = model.getVersion();
+        Supplier<List<Configuration>> search = model.hintSearch((depth, layer, generated, unique) ->
+                Platform.runLater(() -> {
+                    if (hintTask != null && version == model.getVersion()){
+                        this.message.setText("Looking for a hint: " + depth + " moves deep");
+                    }
+                }));
+        this.message.setText("Looking for a hint");
+        hint.setDisable(true);
+        hintProgress.setVisible(true);
+        cancelHint.setVisible(true);
+        hintTask = hintExecutor.submit(() -> {
+            try {
+                List<Configuration> path = search.get();
+                Platform.runLater(() -> finishHint(version, path));
+            }
+            catch (CancellationException ignore) {
             }
+            catch (RuntimeException e) {
+                Platform.runLater(() -> finishHint(version, null));
+            }
+        });
+    }
+
+    /**
+     * Uses the result of a hint search if it hasn't been cancelled and the board is the one it
+     * was started on
+     *
+     * @param version the version of the board the search was started on
+     * @param path the solution path, or null if the search failed
+     */
+    private void finishHint(int version, List<Configuration> path){
+        if (hintTask == null || version != model.getVersion()){
+            return;
         }
-        board.setAlignment(Pos.CENTER);
-        borderPane.setCenter(board);
+        cancelHint();
+        if (path == null){
+            this.message.setText("Hint failed");
+            return;
+        }
+        String message = model.applyHint(path);
+        if (!Objects.equals(message, "")) {
+            this.message.setText(message);
+            displayGrid();
+        }
+    }
+
+    /**
+     * Interrupts the hint search that is running, if there is one, and hides the progress
+     * indicator and cancel button
+     */
+    private void cancelHint(){
+        if (hintTask != null){
+            hintTask.cancel(true);
+            hintTask = null;
+            hint.setDisable(false);
+            hintProgress.setVisible(false);
+            cancelHint.setVisible(false);
+        }
+    }
+
+    /**
+     * Stops any hint search when the window is closed
+     */
+    @Override
+    public void stop(){
+        hintExecutor.shutdownNow();
+        board.stop();
+    }
+
+    /**
+     * Displays the grid to the user. The board view redraws the cells that changed at the next pulse
+     */
+    public void displayGrid(){
+        board.refresh();
+    }
+
+    /**
+     * Sizes the board's viewport for the current board and zooms the board to fit it
+     */
+    private void sizeBoard(){
+        board.setPrefSize(viewWidth(), viewHeight());
+        board.fit(viewWidth(), viewHeight());
+        board.refresh();
+    }
+
+    /**
+     * gets the width the board's viewport starts out with, the board's full width up to a limit
+     *
+     * @return the width in pixels
+     */
+    private double viewWidth(){
+        return Math.min(BoardView.CELL_WIDTH * model.getCols(), MAX_VIEW_WIDTH);
+    }
+
+    /**
+     * gets the height the board's viewport starts out with, the board's full height up to a limit
+     *
+     * @return the height in pixels
+     */
+    private double viewHeight(){
+        return Math.min(BoardView.CELL_HEIGHT * model.getRows(), MAX_VIEW_HEIGHT);
     }
 
     /**
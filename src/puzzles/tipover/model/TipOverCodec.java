@@ -0,0 +1,77 @@
+package puzzles.tipover.model;
+
+import puzzles.common.Coordinates;
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.StateCodec;
+import java.nio.ByteBuffer;
+
+/**
+ * The StateCodec for one Tip Over board. The goal never moves, so only the tipper position
+ * and the heights on the grid are stored.
+ */
+public class TipOverCodec implements StateCodec {
+    /** Number of rows for the board */
+    private final int rows;
+    /** Number of columns for the board */
+    private final int cols;
+    /** A config of the board, whose precomputed data decoded configs share */
+    private final TipOverConfig board;
+
+    /**
+     * Creates a codec for the board of the given config
+     *
+     * @param config a config of the board being solved
+     */
+    public TipOverCodec(TipOverConfig config){
+        this.rows = config.getRows();
+        this.cols = config.getCols();
+        this.board = config;
+    }
+
+    /**
+     * The number of bytes for one config: the tipper row and column, then one byte per cell
+     *
+     * @return the encoded size in bytes
+     */
+    @Override
+    public int encodedSize() {
+        return 2 * Short.BYTES + rows * cols;
+    }
+
+    /**
+     * Writes the tipper position and then the grid row by row
+     *
+     * @param config the TipOverConfig to encode
+     * @param out the buffer to write to
+     */
+    @Override
+    public void encode(Configuration config, ByteBuffer out) {
+        TipOverConfig tipOver = (TipOverConfig) config;
+        out.putShort((short) tipOver.getTipper().row());
+        out.putShort((short) tipOver.getTipper().col());
+        for (int i = 0; i < rows; i++){
+            for (int g = 0; g < cols; g++){
+                out.put((byte) tipOver.getValue(i, g));
+            }
+        }
+    }
+
+    /**
+     * Reads the tipper position and the grid and creates their TipOverConfig, which shares the
+     * goal and the relaxed distances of the codec's board
+     *
+     * @param in the buffer to read from
+     * @return the decoded TipOverConfig
+     */
+    @Override
+    public Configuration decode(ByteBuffer in) {
+        Coordinates tipper = new Coordinates(in.getShort(), in.getShort());
+        int[][] grid = new int[rows][cols];
+        for (int i = 0; i < rows; i++){
+            for (int g = 0; g < cols; g++){
+                grid[i][g] = in.get();
+            }
+        }
+        return new TipOverConfig(tipper, grid, board);
+    }
+}
@@ -1,7 +1,10 @@
 package puzzles.tipover.model;
 
 import puzzles.common.Coordinates;
+import puzzles.common.Zobrist;
 import puzzles.common.solver.Configuration;
+import puzzles.common.solver.Heuristic;
+import puzzles.common.solver.KeyedConfiguration;
 import java.io.*;
 import java.util.*;
 
@@ -12,7 +15,13 @@ import java.util.*;
  * @author Jaden Vo
  */
 
-public class TipOverConfig implements Configuration {
+public class TipOverConfig implements KeyedConfiguration {
+    /** Zobrist piece number of the tipper, towers and crates use their height */
+    private static final int TIPPER = 0;
+    /** Number of Zobrist piece numbers kept in the table */
+    private static final int PIECES = 10;
+    /** Move number of the copy of the config getNeighbors includes, the others go north, south, west, east */
+    private static final int STAY = 0;
     /** Number of rows for the board */
     private int rows;
     /** Number of columns for the board */
@@ -23,8 +32,6 @@ public class TipOverConfig implements Configuration {
     private Coordinates goal;
     /** Grid for the tip over puzzle */
     private int[][] grid;
-    /** set of neighbors */
-    private Set<Configuration> neighbors;
     /** boolean holding tipped tower */
     private boolean tipped;
     /** boolean holding off or on board */
@@ -36,6 +43,14 @@ public class TipOverConfig implements Configuration {
     /** boolean containing if a config has already been solved */
     public boolean solved;
     private boolean isZero;
+    /** Zobrist keys for this board size */
+    private Zobrist zobrist;
+    /** Zobrist hash of the tipper and the grid */
+    private long hash;
+    /** Lower bound on the steps from each cell to the goal, -1 if the goal can't be reached */
+    private int[][] goalDistance;
+    /** Whether the tipper is stuck on an island it can never leave without reaching the goal */
+    private boolean deadEnd;
 
     /**
      * The constructor for the tip over puzzle
@@ -49,13 +64,70 @@ public class TipOverConfig implements Configuration {
         this.grid = grid;
         this.rows = this.grid.length;
         this.cols = this.grid[0].length;
-        this.neighbors = new LinkedHashSet<>();
         this.tipped = false;
         this.offBoard = false;
         this.canTip = true;
         this.solution = false;
         this.solved = false;
         this.isZero = false;
+        this.zobrist = Zobrist.forBoard(rows, cols, PIECES);
+        this.hash = hashBoard();
+        this.goalDistance = relaxedDistances(grid, goal);
+        this.deadEnd = stranded();
+    }
+
+    /**
+     * Constructor for a neighbor. The goal and the precomputed board data are shared with the
+     * parent and the hash was updated incrementally from the parent's.
+     *
+     * @param tipperPos The position of the tipper
+     * @param grid The grid after the move
+     * @param parent The config the move was made from
+     * @param hash The hash after the move
+     */
+    private TipOverConfig(Coordinates tipperPos, int[][] grid, TipOverConfig parent, long hash) {
+        this.tipperPos = tipperPos;
+        this.goal = parent.goal;
+        this.grid = grid;
+        this.rows = this.grid.length;
+        this.cols = this.grid[0].length;
+        this.tipped = false;
+        this.offBoard = false;
+        this.canTip = true;
+        this.solution = false;
+        this.solved = false;
+        this.isZero = false;
+        this.zobrist = parent.zobrist;
+        this.hash = hash;
+        this.goalDistance = parent.goalDistance;
+        this.deadEnd = parent.deadEnd;
+    }
+
+    /**
+     * Constructor for another state of an existing board, such as one read back by the
+     * TipOverCodec. The goal, the Zobrist keys and the relaxed distances are shared with the board
+     * instead of being worked out again, so only the hash and the dead end check are done.
+     *
+     * @param tipperPos The position of the tipper
+     * @param grid The grid, of the same size as the board's
+     * @param board A config of the board
+     */
+    TipOverConfig(Coordinates tipperPos, int[][] grid, TipOverConfig board) {
+        this.tipperPos = tipperPos;
+        this.goal = board.goal;
+        this.grid = grid;
+        this.rows = this.grid.length;
+        this.cols = this.grid[0].length;
+        this.tipped = false;
+        this.offBoard = false;
+        this.canTip = true;
+        this.solution = false;
+        this.solved = false;
+        this.isZero = false;
+        this.zobrist = board.zobrist;
+        this.hash = hashBoard();
+        this.goalDistance = board.goalDistance;
+        this.deadEnd = stranded();
     }
 
     /**
@@ -81,13 +153,335 @@ public class TipOverConfig implements Configuration {
                 this.grid[i][g] = Integer.parseInt(boardVals[g]);
             }
         }
-        this.neighbors = new LinkedHashSet<>();
         this.tipped = false;
         this.offBoard = false;
         this.canTip = true;
         this.solution = false;
         this.solved = false;
         this.isZero = false;
+        this.zobrist = Zobrist.forBoard(rows, cols, PIECES);
+        this.hash = hashBoard();
+        this.goalDistance = relaxedDistances(grid, goal);
+        this.deadEnd = stranded();
+    }
+
+    /**
+     * Computes a lower bound on the number of steps from every cell to the goal. The relaxed
+     * board treats every tower as if it could be tipped in any direction that stays on the board,
+     * so a cell is usable if it has a crate or tower on it or some tower could cover it. Every
+     * cell the tipper can ever stand on is usable, so a BFS from the goal over the usable cells
+     * never overestimates the real number of steps. A cell the BFS doesn't reach can never get
+     * the tipper to the goal.
+     *
+     * @param grid the grid of the board when it is loaded
+     * @param goal the position of the goal
+     * @return the lower bound for each cell, or -1 where the goal can't be reached
+     */
+    private static int[][] relaxedDistances(int[][] grid, Coordinates goal){
+        int rows = grid.length;
+        int cols = grid[0].length;
+        int[][] directions = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+        boolean[][] usable = new boolean[rows][cols];
+        for (int i = 0; i < rows; i++){
+            for (int g = 0; g < cols; g++){
+                int height = grid[i][g];
+                if (height > 0){
+                    usable[i][g] = true;
+                }
+                if (height > 1){
+                    for (int[] dir : directions){
+                        int endRow = i + dir[0] * height;
+                        int endCol = g + dir[1] * height;
+                        if (endRow >= 0 && endRow < rows && endCol >= 0 && endCol < cols){
+                            for (int k = 1; k <= height; k++){
+                                usable[i + dir[0] * k][g + dir[1] * k] = true;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        int[][] distance = new int[rows][cols];
+        for (int[] row : distance){
+            Arrays.fill(row, -1);
+        }
+        if (goal.row() < 0 || goal.row() >= rows || goal.col() < 0 || goal.col() >= cols){
+            return distance;
+        }
+        Deque<Coordinates> queue = new ArrayDeque<>();
+        distance[goal.row()][goal.col()] = 0;
+        queue.add(goal);
+        while (!queue.isEmpty()){
+            Coordinates cell = queue.remove();
+            for (int[] dir : directions){
+                int row = cell.row() + dir[0];
+                int col = cell.col() + dir[1];
+                if (row >= 0 && row < rows && col >= 0 && col < cols && usable[row][col]
+                        && distance[row][col] == -1){
+                    distance[row][col] = distance[cell.row()][cell.col()] + 1;
+                    queue.add(new Coordinates(row, col));
+                }
+            }
+        }
+        return distance;
+    }
+
+    /**
+     * Gets a lower bound on the number of steps from the tipper to the goal, for use as an
+     * admissible heuristic.
+     *
+     * @return the lower bound, or Heuristic.UNREACHABLE if the goal can't be reached
+     */
+    public int distanceToGoal(){
+        int distance = goalDistance[tipperPos.row()][tipperPos.col()];
+        return distance == -1 ? Heuristic.UNREACHABLE : distance;
+    }
+
+    /**
+     * Checks whether the goal can be reached at all, even on the relaxed board where every
+     * tower can be tipped. If it can't, the board has no solution and doesn't need to be searched.
+     *
+     * @return false if the board is certainly unsolvable
+     */
+    public boolean isGoalReachable(){
+        return goalDistance[tipperPos.row()][tipperPos.col()] != -1;
+    }
+
+    /**
+     * Static check run by the solvers before searching: the board is unsolvable if the goal
+     * can't be reached from the tipper even on the relaxed board.
+     *
+     * @return true if the board certainly has no solution
+     */
+    @Override
+    public boolean isUnsolvable(){
+        return !isGoalReachable() || deadEnd;
+    }
+
+    /**
+     * Checks if the tipper is stranded. The tipper can walk anywhere on the island of crates and
+     * towers it is standing on, and the only way anything on the board changes is by tipping a
+     * tower on that island. So if the island doesn't have the goal and none of its towers can be
+     * tipped, nothing reachable from here is a solution.
+     *
+     * @return true if the configuration can be pruned
+     */
+    @Override
+    public boolean isDeadEnd(){
+        return deadEnd;
+    }
+
+    /**
+     * Flood fills the island of nonzero cells the tipper is on, looking for the goal or a tower
+     * that can be tipped.
+     *
+     * @return true if the island has neither
+     */
+    private boolean stranded(){
+        int[][] directions = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+        boolean[][] visited = new boolean[rows][cols];
+        Deque<Coordinates> queue = new ArrayDeque<>();
+        visited[tipperPos.row()][tipperPos.col()] = true;
+        queue.add(tipperPos);
+        while (!queue.isEmpty()){
+            Coordinates cell = queue.remove();
+            if (cell.equals(goal) || canTipFrom(cell.row(), cell.col())){
+                return false;
+            }
+            for (int[] dir : directions){
+                int row = cell.row() + dir[0];
+                int col = cell.col() + dir[1];
+                if (row >= 0 && row < rows && col >= 0 && col < cols && grid[row][col] > 0
+                        && !visited[row][col]){
+                    visited[row][col] = true;
+                    queue.add(new Coordinates(row, col));
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if there is a tower on the cell that can be tipped in some direction, meaning every
+     * cell it would cover is empty and on the board.
+     *
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @return true if a tower there can be tipped
+     */
+    private boolean canTipFrom(int row, int col){
+        int height = grid[row][col];
+        if (height < 2){
+            return false;
+        }
+        int[][] directions = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+        for (int[] dir : directions){
+            if (clearToTip(row, col, dir[0], dir[1])){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if the tower on a cell can be tipped in one direction, meaning every cell it would
+     * cover is empty and on the board.
+     *
+     * @param row the row of the tower
+     * @param col the column of the tower
+     * @param rowStep the row step of the direction
+     * @param colStep the column step of the direction
+     * @return true if the tower can be tipped that way
+     */
+    private boolean clearToTip(int row, int col, int rowStep, int colStep){
+        int height = grid[row][col];
+        int endRow = row + rowStep * height;
+        int endCol = col + colStep * height;
+        if (height < 2 || endRow < 0 || endRow >= rows || endCol < 0 || endCol >= cols){
+            return false;
+        }
+        for (int k = 1; k <= height; k++){
+            if (grid[row + rowStep * k][col + colStep * k] != 0){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Computes the Zobrist hash of the tipper and every tower and crate on the grid.
+     *
+     * @return the hash of the board
+     */
+    private long hashBoard(){
+        long result = zobrist.key(tipperPos, TIPPER);
+        for (int i = 0; i < rows; i++){
+            for (int g = 0; g < cols; g++){
+                if (grid[i][g] > 0){
+                    result ^= zobrist.key(i, g, grid[i][g]);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Builds the neighbor reached by moving the tipper, updating the hash incrementally. A walk
+     * leaves the grid (and its hash) alone and keeps the tipper on the same island, so the dead
+     * end check is only redone after a tip.
+     *
+     * @param pos the new position of the tipper
+     * @param newGrid the grid after the move, which is this config's grid for a walk
+     * @param gridHash the hash after the move with the tipper still at its old position
+     * @return the neighbor configuration
+     */
+    private TipOverConfig moveTo(Coordinates pos, int[][] newGrid, long gridHash){
+        TipOverConfig next = new TipOverConfig(pos, newGrid, this, gridHash ^ zobrist.move(this.tipperPos, pos, TIPPER));
+        if (gridHash != hash){
+            next.deadEnd = next.stranded();
+        }
+        return next;
+    }
+
+    /**
+     * Gets a row of a tipped grid that can be changed. The tipped grid starts out sharing every
+     * row with this config's grid, and a row is only copied the first time the tip changes it, so
+     * a tip along a row copies one row and a tip along a column only the rows the tower covers.
+     *
+     * @param newGrid the tipped grid
+     * @param row the row about to change
+     * @return the row, owned by the tipped grid
+     */
+    private int[] writable(int[][] newGrid, int row){
+        if (newGrid[row] == grid[row]){
+            newGrid[row] = grid[row].clone();
+        }
+        return newGrid[row];
+    }
+
+    /**
+     * The moves are staying put (the copy getNeighbors includes) and going north, south, west
+     * and east, in that order.
+     *
+     * @return the number of moves
+     */
+    @Override
+    public int moveCount(){
+        return 5;
+    }
+
+    /**
+     * Works out the hash after each move without copying the grid, following the same rules as
+     * the direction cases: a tower is tipped if it can be, otherwise the tipper walks onto a
+     * crate or tower next to it.
+     *
+     * @param keys filled in with the hash after each legal move
+     * @return a bit mask of the legal moves
+     */
+    @Override
+    public int childKeys(long[] keys){
+        int[][] directions = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+        keys[STAY] = hash;
+        int legal = 1 << STAY;
+        for (int move = 1; move < moveCount(); move++){
+            if (isSolution()){
+                keys[move] = hash;
+                legal |= 1 << move;
+            }
+            else if (stepKey(directions[move - 1][0], directions[move - 1][1], keys, move)){
+                legal |= 1 << move;
+            }
+        }
+        return legal;
+    }
+
+    /**
+     * Works out the hash after a move in one direction.
+     *
+     * @param rowStep the row step of the direction
+     * @param colStep the column step of the direction
+     * @param keys gets the hash at index move if the move is legal
+     * @param move the number of the move
+     * @return true if the move is legal
+     */
+    private boolean stepKey(int rowStep, int colStep, long[] keys, int move){
+        int row = tipperPos.row();
+        int col = tipperPos.col();
+        int nextRow = row + rowStep;
+        int nextCol = col + colStep;
+        long tipperMove = zobrist.key(row, col, TIPPER) ^ zobrist.key(nextRow, nextCol, TIPPER);
+        if (clearToTip(row, col, rowStep, colStep)){
+            int height = grid[row][col];
+            long key = hash ^ zobrist.key(row, col, height);
+            for (int k = 1; k <= height; k++){
+                key ^= zobrist.key(row + rowStep * k, col + colStep * k, 1);
+            }
+            keys[move] = key ^ tipperMove;
+            return true;
+        }
+        if (nextRow >= 0 && nextRow < rows && nextCol >= 0 && nextCol < cols && grid[nextRow][nextCol] >= 1){
+            keys[move] = hash ^ tipperMove;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Builds the neighbor a move leads to with the direction cases.
+     *
+     * @param move the number of the move
+     * @return the neighbor
+     */
+    @Override
+    public Configuration child(int move){
+        return switch (move){
+            case STAY -> new TipOverConfig(tipperPos, grid, this, hash);
+            case 1 -> northCase();
+            case 2 -> southCase();
+            case 3 -> westCase();
+            case 4 -> eastCase();
+            default -> throw new IllegalArgumentException("No move number " + move);
+        };
     }
 
     /**
@@ -101,13 +495,15 @@ public class TipOverConfig implements Configuration {
     }
 
     /**
-     * Get the collection of neighbors from the current configuration.
+     * Get the collection of neighbors from the current configuration. Every call makes a new
+     * collection, so one call's result is never changed by the next.
      *
      * @return All the neighbors
      */
     @Override
     public Collection<Configuration> getNeighbors() {
-        neighbors.add(new TipOverConfig(tipperPos, goal, grid));
+        Set<Configuration> neighbors = new LinkedHashSet<>();
+        neighbors.add(child(STAY));
         TipOverConfig north = (TipOverConfig) northCase();
         if (north != null){
             neighbors.add(north);
@@ -147,25 +543,27 @@ public class TipOverConfig implements Configuration {
         if (grid[curRow][curCol] > 1) {
             int height = grid[curRow][curCol];
             if (curRow - height >= 0) {
-                int[][] newGrid = gridCopy();
                 int tempHeight = height;
                 for (int i = height; i > 0; i--) {
-                    if (newGrid[curRow - i][curCol] != 0) {
+                    if (grid[curRow - i][curCol] != 0) {
                         break;
                     } else {
                         tempHeight--;
                     }
                 }
                 if (tempHeight == 0) {
+                    int[][] newGrid = grid.clone();
                     int north = curRow - 1;
+                    long tipHash = hash ^ zobrist.key(curRow, curCol, height);
                     for (int i = height; i > 0; i--) {
-                        newGrid[curRow - i][curCol] = 1;
+                        writable(newGrid, curRow - i)[curCol] = 1;
+                        tipHash ^= zobrist.key(curRow - i, curCol, 1);
                     }
-                    newGrid[curRow][curCol] = 0;
+                    writable(newGrid, curRow)[curCol] = 0;
                     if (newGrid[north][curCol] >= 1) {
                         this.tipped = true;
                         Coordinates northPos = new Coordinates(north, curCol);
-                        tip = new TipOverConfig(northPos, this.goal, newGrid);
+                        tip = moveTo(northPos, newGrid, tipHash);
                         if (tip.isSolution()){
                             tip.solution = true;
                         }
@@ -179,7 +577,7 @@ public class TipOverConfig implements Configuration {
                         int north = curRow - 1;
                         if (grid[north][curCol] >= 1) {
                             Coordinates northPos = new Coordinates(north, curCol);
-                            tip = new TipOverConfig(northPos, this.goal, newGrid);
+                            tip = moveTo(northPos, grid, hash);
                             if (tip.isSolution()){
                                 tip.solution = true;
                             }
@@ -198,11 +596,10 @@ public class TipOverConfig implements Configuration {
             else {
                 canTip = false;
                 if (curRow - 1 >= 0) {
-                    int[][] newGrid = gridCopy();
                     int north = curRow - 1;
                     if (grid[north][curCol] >= 1) {
                         Coordinates northPos = new Coordinates(north, curCol);
-                        tip = new TipOverConfig(northPos, this.goal, newGrid);
+                        tip = moveTo(northPos, grid, hash);
                         if (tip.isSolution()){
                             tip.solution = true;
                         }
@@ -222,10 +619,9 @@ public class TipOverConfig implements Configuration {
         else{
             if (curRow - 1 >= 0){
                 int north = curRow - 1;
-                int[][] newGrid = gridCopy();
-                if (newGrid[north][curCol] >= 1) {
+                if (grid[north][curCol] >= 1) {
                     Coordinates northPos = new Coordinates(north, curCol);
-                    tip = new TipOverConfig(northPos, this.goal, newGrid);
+                    tip = moveTo(northPos, grid, hash);
                     if (tip.isSolution()){
                         tip.solution = true;
                     }
@@ -263,25 +659,27 @@ public class TipOverConfig implements Configuration {
             int height = grid[curRow][curCol];
             //Cases for towers
             if (curRow + height < rows) {
-                int[][] newGrid = gridCopy();
                 int tempHeight = height;
                 for (int i = height; i > 0; i--) {
-                    if (newGrid[curRow + i][curCol] != 0) {
+                    if (grid[curRow + i][curCol] != 0) {
                         break;
                     } else {
                         tempHeight--;
                     }
                 }
                 if (tempHeight == 0) {
+                    int[][] newGrid = grid.clone();
                     int south = curRow + 1;
+                    long tipHash = hash ^ zobrist.key(curRow, curCol, height);
                     for (int i = height; i > 0; i--) {
-                        newGrid[curRow + i][curCol] = 1;
+                        writable(newGrid, curRow + i)[curCol] = 1;
+                        tipHash ^= zobrist.key(curRow + i, curCol, 1);
                     }
-                    newGrid[curRow][curCol] = 0;
+                    writable(newGrid, curRow)[curCol] = 0;
                     if (newGrid[south][curCol] >= 1) {
                         this.tipped = true;
                         Coordinates southPos = new Coordinates(south, curCol);
-                        tip = new TipOverConfig(southPos, this.goal, newGrid);
+                        tip = moveTo(southPos, newGrid, tipHash);
                         if (tip.isSolution()){
                             tip.solution = true;
                         }
@@ -296,7 +694,7 @@ public class TipOverConfig implements Configuration {
                         int south = curRow + 1;
                         if (grid[south][curCol] >= 1) {
                             Coordinates southPos = new Coordinates(south, curCol);
-                            tip = new TipOverConfig(southPos, this.goal, newGrid);
+                            tip = moveTo(southPos, grid, hash);
                             if (tip.isSolution()){
                                 tip.solution = true;
                             }
@@ -315,11 +713,10 @@ public class TipOverConfig implements Configuration {
             else {
                 canTip = false;
                 if (curRow + 1 < rows) {
-                    int[][] newGrid = gridCopy();
                     int south = curRow + 1;
                     if (grid[south][curCol] >= 1) {
                         Coordinates southPos = new Coordinates(south, curCol);
-                        tip = new TipOverConfig(southPos, this.goal, newGrid);
+                        tip = moveTo(southPos, grid, hash);
                         if (tip.isSolution()){
                             tip.solution = true;
                         }
@@ -339,10 +736,9 @@ public class TipOverConfig implements Configuration {
         else{
             if (curRow + 1 < rows){
                 int south = curRow + 1;
-                int[][] newGrid = gridCopy();
-                if (newGrid[south][curCol] >= 1) {
+                if (grid[south][curCol] >= 1) {
                     Coordinates southPos = new Coordinates(south, curCol);
-                    tip = new TipOverConfig(southPos, this.goal, newGrid);
+                    tip = moveTo(southPos, grid, hash);
                     if (tip.isSolution()){
                         tip.solution = true;
                     }
@@ -380,10 +776,9 @@ public class TipOverConfig implements Configuration {
         if (grid[curRow][curCol] > 1) {
             int height = grid[curRow][curCol];
             if (curCol - height >= 0) {
-                int[][] newGrid = gridCopy();
                 int tempHeight = height;
                 for (int i = height; i > 0; i--) {
-                    if (newGrid[curRow][curCol - i] != 0) {
+                    if (grid[curRow][curCol - i] != 0) {
                         break;
                     }
                     else{
@@ -391,15 +786,18 @@ public class TipOverConfig implements Configuration {
                     }
                 }
                 if (tempHeight == 0){
+                    int[][] newGrid = grid.clone();
                     int west = curCol - 1;
+                    long tipHash = hash ^ zobrist.key(curRow, curCol, height);
                     for (int i = height; i > 0; i--){
-                        newGrid[curRow][curCol - i] = 1;
+                        writable(newGrid, curRow)[curCol - i] = 1;
+                        tipHash ^= zobrist.key(curRow, curCol - i, 1);
                     }
-                    newGrid[curRow][curCol] = 0;
+                    writable(newGrid, curRow)[curCol] = 0;
                     if (newGrid[curRow][west] >= 1) {
                         this.tipped = true;
                         Coordinates westPos = new Coordinates(curRow, west);
-                        tip = new TipOverConfig(westPos, this.goal, newGrid);
+                        tip = moveTo(westPos, newGrid, tipHash);
                         if (tip.isSolution()){
                             tip.solution = true;
                         }
@@ -412,9 +810,9 @@ public class TipOverConfig implements Configuration {
                     canTip = false;
                     if (curCol - 1 >= 0) {
                         int west = curCol - 1;
-                        if (newGrid[curRow][west] >= 1) {
+                        if (grid[curRow][west] >= 1) {
                             Coordinates westPos = new Coordinates(curRow, west);
-                            tip = new TipOverConfig(westPos, this.goal, newGrid);
+                            tip = moveTo(westPos, grid, hash);
                             if (tip.isSolution()){
                                 tip.solution = true;
                             }
@@ -433,11 +831,10 @@ public class TipOverConfig implements Configuration {
             else{
                 canTip = false;
                 if (curCol - 1 >= 0) {
-                    int[][] newGrid = gridCopy();
                     int west = curCol - 1;
-                    if (newGrid[curRow][west] >= 1) {
+                    if (grid[curRow][west] >= 1) {
                         Coordinates westPos = new Coordinates(curRow, west);
-                        tip = new TipOverConfig(westPos, this.goal, newGrid);
+                        tip = moveTo(westPos, grid, hash);
                         if (tip.isSolution()){
                             tip.solution = true;
                         }
@@ -457,10 +854,9 @@ public class TipOverConfig implements Configuration {
         else{
             if (curCol - 1 >= 0) {
                 int west = curCol - 1;
-                int[][] newGrid = gridCopy();
-                if (newGrid[curRow][west] >= 1) {
+                if (grid[curRow][west] >= 1) {
                     Coordinates westPos = new Coordinates(curRow, west);
-                    tip = new TipOverConfig(westPos, this.goal, newGrid);
+                    tip = moveTo(westPos, grid, hash);
                     if (tip.isSolution()){
                         tip.solution = true;
                     }
@@ -498,10 +894,9 @@ public class TipOverConfig implements Configuration {
         if (grid[curRow][curCol] > 1){
             int height = grid[curRow][curCol];
             if (curCol + height < cols){
-                int[][] newGrid = gridCopy();
                 int tempHeight = height;
                 for (int i = height; i > 0; i--) {
-                    if (newGrid[curRow][curCol + i] != 0) {
+                    if (grid[curRow][curCol + i] != 0) {
                         break;
                     }
                     else{
@@ -509,15 +904,18 @@ public class TipOverConfig implements Configuration {
                     }
                 }
                 if (tempHeight == 0){
+                    int[][] newGrid = grid.clone();
                     int east = curCol + 1;
+                    long tipHash = hash ^ zobrist.key(curRow, curCol, height);
                     for (int i = height; i > 0; i--){
-                        newGrid[curRow][curCol + i] = 1;
+                        writable(newGrid, curRow)[curCol + i] = 1;
+                        tipHash ^= zobrist.key(curRow, curCol + i, 1);
                     }
-                    newGrid[curRow][curCol] = 0;
+                    writable(newGrid, curRow)[curCol] = 0;
                     if (newGrid[curRow][east] >= 1) {
                         this.tipped = true;
                         Coordinates eastPos = new Coordinates(curRow, east);
-                        tip = new TipOverConfig(eastPos, this.goal, newGrid);
+                        tip = moveTo(eastPos, newGrid, tipHash);
                         if (tip.isSolution()){
                             tip.solution = true;
                         }
@@ -530,9 +928,9 @@ public class TipOverConfig implements Configuration {
                     canTip = false;
                     if (curCol + 1 < cols){
                         int east = curCol + 1;
-                        if (newGrid[curRow][east] >= 1) {
+                        if (grid[curRow][east] >= 1) {
                             Coordinates eastPos = new Coordinates(curRow, east);
-                            tip = new TipOverConfig(eastPos, this.goal, newGrid);
+                            tip = moveTo(eastPos, grid, hash);
                             if (tip.isSolution()){
                                 tip.solution = true;
                             }
@@ -551,11 +949,10 @@ public class TipOverConfig implements Configuration {
             else{
                 canTip = false;
                 if (curCol + 1 < cols){
-                    int[][] newGrid = gridCopy();
                     int east = curCol + 1;
-                    if (newGrid[curRow][east] >= 1) {
+                    if (grid[curRow][east] >= 1) {
                         Coordinates eastPos = new Coordinates(curRow, east);
-                        tip = new TipOverConfig(eastPos, this.goal, newGrid);
+                        tip = moveTo(eastPos, grid, hash);
                         if (tip.isSolution()){
                             tip.solution = true;
                         }
@@ -575,10 +972,9 @@ public class TipOverConfig implements Configuration {
         else{
             if (curCol + 1 < cols){
                 int east = curCol + 1;
-                int[][] newGrid = gridCopy();
-                if (newGrid[curRow][east] >= 1) {
+                if (grid[curRow][east] >= 1) {
                     Coordinates eastPos = new Coordinates(curRow, east);
-                    tip = new TipOverConfig(eastPos, this.goal, newGrid);
+                    tip = moveTo(eastPos, grid, hash);
                     if (tip.isSolution()){
                         tip.solution = true;
                     }
@@ -694,6 +1090,16 @@ public class TipOverConfig implements Configuration {
         return goal;
     }
 
+    /**
+     * Makes a fresh copy of the config that shares the grid but none of the state the direction
+     * cases change, so it can be searched on another thread while this one is played on.
+     *
+     * @return the copy
+     */
+    public TipOverConfig copy(){
+        return (TipOverConfig) child(STAY);
+    }
+
     /**
      * gets a boolean of if the config is solved
      *
@@ -704,7 +1110,8 @@ public class TipOverConfig implements Configuration {
     }
 
     /**
-     * Checks to see whether two TipOverConfigs are equals to eachother.
+     * Checks to see whether two TipOverConfigs are equals to eachother. Configs with different
+     * hashes are rejected before the grids are compared.
      *
      * @param other the object to be compared
      * @return a boolean for the equality.
@@ -713,7 +1120,7 @@ public class TipOverConfig implements Configuration {
     public boolean equals(Object other) {
         if (other instanceof TipOverConfig){
             TipOverConfig newOther = (TipOverConfig) other;
-            if (this.rows == newOther.rows && this.cols == newOther.cols &&
+            if (this.hash == newOther.hash && this.rows == newOther.rows && this.cols == newOther.cols &&
                     this.tipperPos.equals(newOther.tipperPos) && this.goal.equals(newOther.goal) &&
                     this.gridCheck(newOther)){
                 return true;
@@ -740,13 +1147,23 @@ public class TipOverConfig implements Configuration {
     }
 
     /**
-     * Generates a unique hashcode for each TipOverConfig object
+     * Generates a unique hashcode for each TipOverConfig object from the Zobrist hash of the board
      *
      * @return an integer representing the hashcode of the object.
      */
     @Override
     public int hashCode() {
-        return this.rows + this.cols + this.tipperPos.hashCode() + this.goal.hashCode();
+        return Zobrist.fold(this.hash);
+    }
+
+    /**
+     * The 64-bit Zobrist hash of the tipper and the grid, kept up to date as the tipper moves
+     *
+     * @return the fingerprint of this config
+     */
+    @Override
+    public long fingerprint() {
+        return this.hash;
     }
 
     /**
@@ -1,12 +1,28 @@
 package puzzles.tipover.model;
 
+import puzzles.common.BoardLibrary;
+import puzzles.common.Dispatcher;
+import puzzles.common.History;
 import puzzles.common.Observer;
+import puzzles.common.Update;
 import puzzles.common.solver.Configuration;
-import puzzles.common.solver.Solver;
+import puzzles.common.solver.LayerListener;
+import puzzles.common.solver.SolutionCache;
+import puzzles.common.solver.SolveScheduler;
+import puzzles.common.solver.SolveScheduler.Priority;
 import java.io.*;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 import puzzles.common.Coordinates;
 
 /**
@@ -15,7 +31,7 @@ import puzzles.common.Coordinates;
  * @author Jaden Vo
  */
 
-public class TipOverModel {
+public class TipOverModel implements AutoCloseable {
     /** String holding hint prefixes */
     public static String HINT_PREFIX = "Next step!";
     /** String holding load failed */
@@ -34,11 +50,40 @@ public class TipOverModel {
     public static String SOLVED = "Current board is already solved.";
     /** String holding if user won */
     public static String SOLUTION = "I WON!";
-    /** the collection of observers of this model */
-    private final List<Observer<TipOverModel, String>> observers = new LinkedList<>();
+    /** String holding an undone move */
+    public static String UNDONE = "Move undone.";
+    /** String holding a redone move */
+    public static String REDONE = "Move redone.";
+    /** delivers the model's announcements to its observers */
+    private final Dispatcher<TipOverModel, Update> observers = new Dispatcher<>(Update::merge);
     /** the current configuration */
-    private TipOverConfig currentConfig;
+    private volatile TipOverConfig currentConfig;
+    /**
+     * the moves made on the current board, which can be undone and redone. The direction cases
+     * leave flags on the configs they are called on, so a config taken back out of the history is
+     * copied before it is played on again
+     */
+    private History<TipOverConfig> history;
     private String file;
+    /** counts the changes to the board, so a hint worked out for an older board can be spotted */
+    private volatile int version;
+    /** runs the speculative solves at low priority, shared by every model */
+    private static final ExecutorService PRESOLVER = Executors.newCachedThreadPool(task -> {
+        Thread thread = new Thread(task, "tipover-presolve");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    /** whether a solve of the board is started in the background after every change */
+    private boolean speculative = true;
+    /** the solution path from the current board, being worked out in the background, or null */
+    private volatile Future<List<Configuration>> presolve;
+    /** whether the speculative solve has got its turn, rather than waiting behind other batch solves */
+    private volatile AtomicBoolean presolveStarted;
+    /** where the boards are loaded from */
+    private final BoardLibrary<TipOverConfig> boards;
+    /** the solutions shared by everyone playing the current board, or null */
+    private volatile SolutionCache solutions;
 
     /**
      * Constructer for the TipOverModel
@@ -47,16 +92,59 @@ public class TipOverModel {
      * @throws IOException
      */
     public TipOverModel(String filename) throws IOException{
-        currentConfig = new TipOverConfig(filename);
+        this(filename, true);
+    }
+
+    /**
+     * Constructer for the TipOverModel that chooses whether boards are solved speculatively in the
+     * background
+     *
+     * @param filename the file to be put into the config
+     * @param speculative whether to solve every board in the background
+     * @throws IOException
+     */
+    public TipOverModel(String filename, boolean speculative) throws IOException{
+        this(filename, speculative, TipOverConfig::new);
+    }
+
+    /**
+     * Constructer for a TipOverModel whose boards come from a library, which may share them and
+     * their solutions with other models
+     *
+     * @param filename the file to be put into the config
+     * @param speculative whether to solve every board in the background
+     * @param boards where the boards are loaded from
+     * @throws IOException
+     */
+    public TipOverModel(String filename, boolean speculative, BoardLibrary<TipOverConfig> boards)
+            throws IOException{
+        this.boards = boards;
+        currentConfig = boards.board(filename);
+        history = History.of(currentConfig);
+        solutions = boards.solutions(filename);
         this.file = filename;
+        this.speculative = speculative;
+        boardChanged(null);
     }
     /**
      * The view calls this to add itself as an observer.
      *
      * @param observer the view
      */
-    public void addObserver(Observer<TipOverModel, String> observer) {
-        this.observers.add(observer);
+    public void addObserver(Observer<TipOverModel, Update> observer) {
+        this.observers.addObserver(observer);
+    }
+
+    /**
+     * A view calls this to add itself as an observer that is updated on its own executor, such as
+     * the JavaFX Application Thread. Announcements that arrive before the executor gets to them are
+     * merged with the next one unless both carry a message, so every message is delivered.
+     *
+     * @param observer the view
+     * @param executor runs the view's updates
+     */
+    public void addObserver(Observer<TipOverModel, Update> observer, Executor executor) {
+        this.observers.addObserver(observer, executor);
     }
 
     public void loadBoardFromFile(File file){
@@ -85,10 +173,13 @@ public class TipOverModel {
         catch (Exception ignore) {
         }
         try {
-            currentConfig = new TipOverConfig(filename);
-            announce(LOAD);
+            currentConfig = boards.board(filename);
+            history = History.of(currentConfig);
+            solutions = boards.solutions(filename);
+            boardChanged(null);
+            announce(LOAD, true);
         }catch (Exception e) {
-            announce(LOAD_FAILED);
+            announce(LOAD_FAILED, false);
         }
     }
 
@@ -100,46 +191,176 @@ public class TipOverModel {
      */
     public String getHint(){
         if (currentConfig.isAlreadySolved()){
-            announce(SOLVED);
+            announce(SOLVED, false);
+            return "";
+        }
+        return applyHint(hintSearch(null).get());
+    }
+
+    /**
+     * Makes a search for a hint from a copy of the current board, so it can run on another thread
+     * while the board is played on. If a speculative solve of the board is under way, the search
+     * waits for its result instead of starting over, and if the board's solutions are shared the
+     * search is only run if nobody has solved it yet. The search is an interactive solve of the
+     * shared SolveScheduler, so it may be rejected with a RejectedExecutionException when too many
+     * are waiting. It checks at the end of every layer whether its thread has been interrupted, and
+     * if it has it gives up by throwing a CancellationException.
+     *
+     * @param progress told about every layer of the search, or null
+     * @return the search, which returns the solution path
+     */
+    public Supplier<List<Configuration>> hintSearch(LayerListener progress){
+        Future<List<Configuration>> known = presolve;
+        AtomicBoolean started = presolveStarted;
+        if (known != null && !known.isDone() && !started.get()){
+            //Still waiting behind other batch solves, so don't wait for it
+            known = null;
+        }
+        return search(progress, Priority.INTERACTIVE, known, null);
+    }
+
+    /**
+     * Makes a search from a copy of the current board
+     *
+     * @param progress told about every layer of the search, or null
+     * @param priority the priority of the solve
+     * @param known the speculative solve to wait for, or null
+     * @param started set once the solve gets its turn, or null
+     * @return the search, which returns the solution path
+     */
+    private Supplier<List<Configuration>> search(LayerListener progress, Priority priority,
+                                                 Future<List<Configuration>> known,
+                                                 AtomicBoolean started){
+        TipOverConfig start = currentConfig.copy();
+        SolutionCache cache = solutions;
+        return () -> {
+            if (known != null){
+                try {
+                    return known.get();
+                }
+                catch (InterruptedException e){
+                    throw new CancellationException("Hint cancelled");
+                }
+                catch (ExecutionException | CancellationException ignore){
+                }
+            }
+            SolutionCache.Search solve = begun -> SolveScheduler.shared().solve(priority, start, progress, () -> {
+                begun.run();
+                if (started != null){
+                    started.set(true);
+                }
+            });
+            return cache == null ? solve.search(() -> {}) : cache.solve(start, solve);
+        };
+    }
+
+    /**
+     * Takes the next step of a solution path found by a hint search for the current board, the
+     * same way getHint does.
+     *
+     * @param path the solution path from the current board
+     * @return a message if there is no solution, otherwise an empty string
+     */
+    public String applyHint(List<Configuration> path){
+        if (currentConfig.isAlreadySolved()){
+            announce(SOLVED, false);
             return "";
         }
-        Solver solve = new Solver();
-        List<Configuration> path = solve.solve(currentConfig);
         String msg = "";
         if (path.isEmpty()){
             msg = "No Solution";
         }
         else if (path.size() == 1){
             if (currentConfig.isSolution()){
-                announce(SOLVED);
+                announce(SOLVED, false);
                 currentConfig.solution = true;
                 currentConfig.solved = true;
             }
         }
         else{
-            currentConfig = (TipOverConfig) path.get(1);
+            //The path's configs may be shared, so the model plays on its own copy
+            currentConfig = ((TipOverConfig) path.get(1)).copy();
+            history = history.move(currentConfig);
+            boardChanged(new LinkedList<>(path.subList(1, path.size())));
             if (currentConfig.isSolution()){
-                announce(SOLUTION);
+                announce(SOLUTION, true);
                 currentConfig.solution = true;
                 currentConfig.solved = true;
             }
             else {
-                announce(HINT_PREFIX);
+                announce(HINT_PREFIX, true);
             }
         }
         return msg;
     }
 
+    /**
+     * Turns the speculative solving on or off. When it is on, a solve of the board is started on a
+     * low priority background thread after every change, so a hint asked for a little later is
+     * already known. Turning it off cancels the solve that is running.
+     *
+     * @param speculative whether to solve every board in the background
+     */
+    public void setSpeculative(boolean speculative){
+        this.speculative = speculative;
+        if (!speculative && presolve != null){
+            presolve.cancel(true);
+            presolve = null;
+        }
+    }
 
     /**
-     * Announce to observers the model has changed
+     * Stops solving in the background, once the model isn't needed any more. It can still be played,
+     * but boards aren't solved speculatively.
+     */
+    @Override
+    public void close(){
+        setSpeculative(false);
+    }
+
+    /**
+     * Counts a change to the board and replaces the speculative solve of the old board, cancelling
+     * it if it is still running.
      *
-     * @param arg String to be announced
+     * @param path a solution path from the new board if one is already known, otherwise null to
+     *             start solving it in the background
      */
-    private void announce(String arg){
-        for (var obs : this.observers){
-            obs.update(this, arg);
+    private void boardChanged(List<Configuration> path){
+        version++;
+        if (presolve != null){
+            presolve.cancel(true);
+            presolve = null;
         }
+        if (path != null){
+            presolve = CompletableFuture.completedFuture(path);
+        }
+        else if (speculative){
+            AtomicBoolean started = new AtomicBoolean();
+            Supplier<List<Configuration>> search = search(null, Priority.BATCH, null, started);
+            presolveStarted = started;
+            presolve = PRESOLVER.submit(search::get);
+        }
+    }
+
+    /**
+     * gets the number of times the board has changed, so a view can tell whether a hint it asked
+     * for is still for the current board
+     *
+     * @return the version of the board
+     */
+    public int getVersion(){
+        return version;
+    }
+
+
+    /**
+     * Announce to observers the model has changed
+     *
+     * @param message String to be announced, or "" for none
+     * @param boardChanged whether the board has changed and has to be redrawn
+     */
+    private void announce(String message, boolean boardChanged){
+        observers.dispatch(this, new Update(message, boardChanged));
     }
 
     /**
@@ -152,142 +373,230 @@ public class TipOverModel {
             TipOverConfig north = (TipOverConfig) this.currentConfig.northCase();
             if (currentConfig.isSolution()){
                 if (currentConfig.isAlreadySolved()){
-                    announce(SOLVED);
+                    announce(SOLVED, false);
                 }
                 else {
-                    announce(SOLUTION);
+                    announce(SOLUTION, false);
                 }
             }
             else if (currentConfig.isAlreadySolved()){
-                announce(SOLVED);
+                announce(SOLVED, false);
             }
             else if (north != null){
-                if (currentConfig.isTipped()){
-                    announce(TIPMSG);
-                }
+                boolean tipped = currentConfig.isTipped();
                 currentConfig = north;
-                if (currentConfig.isSolution()){
-                    announce(SOLUTION);
-                }
-                else{
-                    announce("");
-                }
+                history = history.move(currentConfig);
+                boardChanged(null);
+                //A win is announced instead of the tip that made it
+                announce(currentConfig.isSolution() ? SOLUTION : tipped ? TIPMSG : "", true);
             }
             else if (!this.currentConfig.canTip()){
-                announce(CANTIP);
+                announce(CANTIP, false);
             }
             else if (this.currentConfig.isZero()){
-                announce(MESSAGE);
+                announce(MESSAGE, false);
             }
             else if (this.currentConfig.offBoard()){
-                announce(OFFBOARDMSG);
+                announce(OFFBOARDMSG, false);
             }
         }
         else if (direction.toLowerCase().contains("s")) {
             TipOverConfig south = (TipOverConfig) this.currentConfig.southCase();
             if (currentConfig.isSolution()){
                 if (currentConfig.isAlreadySolved()){
-                    announce(SOLVED);
+                    announce(SOLVED, false);
                 }
                 else {
-                    announce(SOLUTION);
+                    announce(SOLUTION, false);
                 }
             }
             else if (currentConfig.isAlreadySolved()){
-                announce(SOLVED);
+                announce(SOLVED, false);
             }
             else if (south != null){
-                if (currentConfig.isTipped()){
-                    announce(TIPMSG);
-                }
+                boolean tipped = currentConfig.isTipped();
                 currentConfig = south;
-                if (currentConfig.isSolution()){
-                    announce(SOLUTION);
-                }
-                else{
-                    announce("");
-                }
+                history = history.move(currentConfig);
+                boardChanged(null);
+                //A win is announced instead of the tip that made it
+                announce(currentConfig.isSolution() ? SOLUTION : tipped ? TIPMSG : "", true);
             }
             else if (!this.currentConfig.canTip()){
-                announce(CANTIP);
+                announce(CANTIP, false);
             }
             else if (this.currentConfig.isZero()){
-                announce(MESSAGE);
+                announce(MESSAGE, false);
             }
             else if (this.currentConfig.offBoard()){
-                announce(OFFBOARDMSG);
+                announce(OFFBOARDMSG, false);
             }
         }
         else if (direction.toLowerCase().contains("w")) {
             TipOverConfig west = (TipOverConfig) this.currentConfig.westCase();
             if (currentConfig.isSolution()){
                 if (currentConfig.isAlreadySolved()){
-                    announce(SOLVED);
+                    announce(SOLVED, false);
                 }
                 else {
-                    announce(SOLUTION);
+                    announce(SOLUTION, false);
                 }
             }
             else if (currentConfig.isAlreadySolved()){
-                announce(SOLVED);
+                announce(SOLVED, false);
             }
             else if (west != null){
-                if (currentConfig.isTipped()){
-                    announce(TIPMSG);
-                }
+                boolean tipped = currentConfig.isTipped();
                 currentConfig = west;
-                if (currentConfig.isSolution()){
-                    announce(SOLUTION);
-                }
-                else{
-                    announce("");
-                }
+                history = history.move(currentConfig);
+                boardChanged(null);
+                //A win is announced instead of the tip that made it
+                announce(currentConfig.isSolution() ? SOLUTION : tipped ? TIPMSG : "", true);
             }
             else if (!this.currentConfig.canTip()){
-                announce(CANTIP);
+                announce(CANTIP, false);
             }
             else if (this.currentConfig.isZero()){
-                announce(MESSAGE);
+                announce(MESSAGE, false);
             }
             else if (this.currentConfig.offBoard()){
-                announce(OFFBOARDMSG);
+                announce(OFFBOARDMSG, false);
             }
         }
         else if (direction.toLowerCase().contains("e")) {
             TipOverConfig east = (TipOverConfig) this.currentConfig.eastCase();
             if (currentConfig.isSolution()){
                 if (currentConfig.isAlreadySolved()){
-                    announce(SOLVED);
+                    announce(SOLVED, false);
                 }
                 else {
-                    announce(SOLUTION);
+                    announce(SOLUTION, false);
                 }
             }
             else if (currentConfig.isAlreadySolved()){
-                announce(SOLVED);
+                announce(SOLVED, false);
             }
             else if (east != null){
-                if (currentConfig.isTipped()){
-                    announce(TIPMSG);
-                }
+                boolean tipped = currentConfig.isTipped();
                 currentConfig = east;
-                if (currentConfig.isSolution()){
-                    announce(SOLUTION);
-                }
-                else{
-                    announce("");
-                }
+                history = history.move(currentConfig);
+                boardChanged(null);
+                //A win is announced instead of the tip that made it
+                announce(currentConfig.isSolution() ? SOLUTION : tipped ? TIPMSG : "", true);
             }
             else if (!this.currentConfig.canTip()){
-                announce(CANTIP);
+                announce(CANTIP, false);
             }
             else if (this.currentConfig.isZero()){
-                announce(MESSAGE);
+                announce(MESSAGE, false);
             }
             else if (this.currentConfig.offBoard()){
-                announce(OFFBOARDMSG);
+                announce(OFFBOARDMSG, false);
+            }
+        }
+    }
+
+    /**
+     * Applies a sequence of moves given as one letter per move out of N, S, E and W, in either
+     * case, such as "NNESW". The moves are made one after another without announcing anything in
+     * between. It stops at the first move that can't be made, keeping the moves before it. A move
+     * once the goal has been reached can't be made either. If any move was made, the observers are
+     * told once at the end, with SOLUTION if the goal was reached.
+     *
+     * @param moves the moves
+     * @return the index of the first move that couldn't be made, or -1 if every move was made
+     */
+    public int applyMoves(CharSequence moves){
+        TipOverConfig config = currentConfig;
+        History<TipOverConfig> moved = history;
+        int illegal = -1;
+        for (int i = 0; i < moves.length() && illegal < 0; i++){
+            TipOverConfig next = null;
+            if (!config.isSolution() && !config.isAlreadySolved()){
+                next = switch (Character.toUpperCase(moves.charAt(i))){
+                    case 'N' -> (TipOverConfig) config.northCase();
+                    case 'S' -> (TipOverConfig) config.southCase();
+                    case 'E' -> (TipOverConfig) config.eastCase();
+                    case 'W' -> (TipOverConfig) config.westCase();
+                    default -> null;
+                };
             }
+            if (next == null){
+                illegal = i;
+            }
+            else {
+                config = next;
+                moved = moved.move(next);
+            }
+        }
+        if (config != currentConfig){
+            currentConfig = config;
+            history = moved;
+            boardChanged(null);
+            announce(currentConfig.isSolution() ? SOLUTION : "", true);
+        }
+        return illegal;
+    }
+
+    /**
+     * Undoes the last move, whether it was a move, a hint or a reset, and announces UNDONE. The
+     * board isn't reloaded.
+     *
+     * @return false if there was no move to undo
+     */
+    public boolean undo(){
+        if (!history.canUndo()){
+            return false;
+        }
+        history = history.undo();
+        currentConfig = history.current().copy();
+        boardChanged(null);
+        announce(UNDONE, true);
+        return true;
+    }
+
+    /**
+     * Makes the last undone move again and announces REDONE.
+     *
+     * @return false if there was no undone move to redo
+     */
+    public boolean redo(){
+        if (!history.canRedo()){
+            return false;
         }
+        history = history.redo();
+        currentConfig = history.current().copy();
+        boardChanged(null);
+        announce(REDONE, true);
+        return true;
+    }
+
+    /**
+     * Puts the board back the way it was loaded, without reading the file again, and announces
+     * LOAD. The reset can be undone.
+     */
+    public void reset(){
+        history = history.reset();
+        currentConfig = history.current().copy();
+        boardChanged(null);
+        announce(LOAD, true);
+    }
+
+    /**
+     * gets whether there is a move to undo
+     *
+     * @return true if undo would change the board
+     */
+    public boolean canUndo(){
+        return history.canUndo();
+    }
+
+    /**
+     * gets whether there is an undone move to redo
+     *
+     * @return true if redo would change the board
+     */
+    public boolean canRedo(){
+        return history.canRedo();
     }
 
     /**
@@ -1,6 +1,7 @@
 package puzzles.tipover.ptui;
 
 import puzzles.common.Observer;
+import puzzles.common.Update;
 import puzzles.tipover.model.*;
 import java.io.*;
 import java.util.*;
@@ -12,11 +13,19 @@ import java.util.*;
  * @author Jaden Vo
  */
 
-public class TipOverPTUI implements Observer<TipOverModel, String> {
+public class TipOverPTUI implements Observer<TipOverModel, Update> {
+    /** the help message listing the commands */
+    private static final String HELP = "h(int)              -- hint next move\n" +
+            "l(oad) filename     -- load new puzzle file\n" +
+            "m(ove) {N|S|E|W}    -- move the tipper in the given direction\n" +
+            "q(uit)              -- quit the game\n" +
+            "r(eset)             -- reset the current game";
     /** the mode of the PTUI */
     private TipOverModel model;
     /** Scanner for input #*/
     private Scanner in;
+    /** where everything is printed */
+    private PrintStream out;
     /** boolean for game on */
     private boolean gameOn;
     /** String for the file */
@@ -28,11 +37,38 @@ public class TipOverPTUI implements Observer<TipOverModel, String> {
      * @param file the file to be used in the TipOverModel constructor
      */
     public TipOverPTUI(String file) throws IOException {
-        this.model = new TipOverModel(file);
+        this(file, System.in, System.out, true);
+    }
+
+    /**
+     * The Text UI for Tip Over, reading commands from and printing to the given streams, so it can
+     * also be run from a script
+     *
+     * @param file the file to be used in the TipOverModel constructor
+     * @param input where the commands are read from
+     * @param output where everything is printed
+     * @param speculative whether the model solves every board in the background
+     */
+    public TipOverPTUI(String file, InputStream input, PrintStream output, boolean speculative)
+            throws IOException {
+        this.model = new TipOverModel(file, speculative);
         this.model.addObserver(this);
         this.gameOn = false;
         this.file = file;
-        this.in = new Scanner(System.in);
+        this.in = new Scanner(input);
+        this.out = output;
+    }
+
+    /**
+     * Runs a whole game from a script of commands without a console, the way the ScriptDriver does
+     *
+     * @param file the file to start with
+     * @param input the commands
+     * @param output where everything is printed
+     * @throws IOException
+     */
+    public static void runScript(String file, InputStream input, PrintStream output) throws IOException {
+        new TipOverPTUI(file, input, output, false).run(file, false);
     }
 
     /**
@@ -49,7 +85,7 @@ public class TipOverPTUI implements Observer<TipOverModel, String> {
      * Displays the grid for the model
      */
     public void displayGrid(){
-        System.out.println(model.toString());
+        out.println(model.toString());
     }
 
     /**
@@ -66,64 +102,65 @@ public class TipOverPTUI implements Observer<TipOverModel, String> {
      *
      * @param model   the object that wishes to inform this object
      *                about something that has happened.
-     * @param message optional data the server.model can send to the observer
+     * @param update the message, and whether the board has changed
      */
     @Override
-    public void update(TipOverModel model, String message) {
+    public void update(TipOverModel model, Update update) {
+        String message = update.message();
         if (message.equals(TipOverModel.SOLVED)){
-            System.out.println(message);
-            System.out.println();
+            out.println(message);
+            out.println();
             return;
         }
         else if (message.equals(TipOverModel.SOLUTION)){
-            System.out.println(message);
-            System.out.println();
+            out.println(message);
+            out.println();
             displayGrid();
-            System.out.println();
+            out.println();
             return;
         }
         else if (message.equals(TipOverModel.LOAD)){
             if (gameOn) {
-                System.out.println(message + file);
+                out.println(message + file);
             }
-            System.out.println();
+            out.println();
             displayGrid();
             if (gameOn){
-                System.out.println("");
+                out.println("");
             }
             return;
         }
         else if (message.equals(TipOverModel.LOAD_FAILED)){
-            System.out.println(message + file);
-            System.out.println();
+            out.println(message + file);
+            out.println();
             displayGrid();
             return;
         }
         else if (message.equals(TipOverModel.HINT_PREFIX)){
-            System.out.println(message);
-            System.out.println();
+            out.println(message);
+            out.println();
             displayGrid();
-            System.out.println();
+            out.println();
             return;
         }
         else if(message.equals(TipOverModel.TIPMSG)){
-            System.out.print(message);
+            out.println(message);
             return;
         }
         else if (message.equals(TipOverModel.OFFBOARDMSG)){
-            System.out.println(message);
+            out.println(message);
             return;
         }
         else if (message.equals(TipOverModel.CANTIP)){
-            System.out.println(message);
-            System.out.println();
+            out.println(message);
+            out.println();
             return;
         }
         else if (message.equals(TipOverModel.MESSAGE)){
-            System.out.println(message);
+            out.println(message);
             return;
         }
-        System.out.println(message);
+        out.println(message);
     }
 
     /**
@@ -131,16 +168,16 @@ public class TipOverPTUI implements Observer<TipOverModel, String> {
      *
      * @param filename file to be loaded
      * @param reset boolean of if board was reset
-     * @return
+     * @return true if the file exists and the game can start
      */
     public boolean gameStart(String filename, boolean reset){
         File file = new File(filename);
         if (!file.exists()){
-            System.out.println("Failed to load: " + filename);
-            System.exit(0);
+            out.println("Failed to load: " + filename);
+            return false;
         }
         if (!reset){
-            System.out.println("Loaded: " + filename + "\n");
+            out.println("Loaded: " + filename + "\n");
         }
         displayGrid();
         gameOn = true;
@@ -148,43 +185,44 @@ public class TipOverPTUI implements Observer<TipOverModel, String> {
     }
 
     /**
-     * runs the game until quit
+     * runs the game until quit or the input runs out
      *
      * @param filename File to be passed into game start
      * @param reset checks to see if game was reset
      * @throws IOException
      */
     public void run(String filename, boolean reset) throws IOException {
-        while (gameStart(filename, reset)){
+        if (gameStart(filename, reset)){
             gameLoop(reset);
         }
+        out.flush();
     }
 
     /**
-     * The main loop for the TipOverPTUI. Gets user input and runs commands based on them.
+     * The main loop for the TipOverPTUI. Gets user input and runs commands based on them. An invalid
+     * command prints the help again. Returns when the user quits or the input runs out.
      *
      * @param reset Whether the game has been reset
      * @throws IOException
      */
     public void gameLoop(boolean reset) throws IOException {
-        String msg;
         if (!reset){
-            System.out.println("\nh(int)              -- hint next move\n" +
-                    "l(oad) filename     -- load new puzzle file\n" +
-                    "m(ove) {N|S|E|W}    -- move the tipper in the given direction\n" +
-                    "q(uit)              -- quit the game\n" +
-                    "r(eset)             -- reset the current game");
+            out.println("\n" + HELP);
         }
         while (gameOn){
-            msg = "";
+            out.flush();
+            if (!in.hasNextLine()){
+                gameOn = false;
+                return;
+            }
             String command = in.nextLine().strip();
-            System.out.print("> ");
+            out.print("> ");
             if (command.equalsIgnoreCase("h") || command.equalsIgnoreCase("hint")){
                 String hintmsg = this.model.getHint();
                 if (!Objects.equals(hintmsg, "")) {
-                    System.out.println(hintmsg);
+                    out.println(hintmsg);
                     displayGrid();
-                    System.out.println();
+                    out.println();
                 }
             }
             else if (command.toLowerCase().contains("l ") || command.toLowerCase().contains("load ")){
@@ -192,32 +230,26 @@ public class TipOverPTUI implements Observer<TipOverModel, String> {
             }
             else if (command.toLowerCase().contains("m ") || command.toLowerCase().contains("move ")){
                 this.model.tipOver(command);
-                System.out.println();
+                out.println();
                 displayGrid();
-                System.out.println();
+                out.println();
             }
             else if (command.equalsIgnoreCase("q") || command.equalsIgnoreCase("quit")){
-                System.exit(0);
+                gameOn = false;
+                return;
             }
             else if (command.equalsIgnoreCase("r") || command.equalsIgnoreCase("reset")){
-                System.out.println("Puzzle reset!");
+                out.println("Puzzle reset!");
                 gameOn = false;
-                model.loadBoardFromFile(file);
+                model.reset();
                 gameOn = true;
-                System.out.println("");
+                out.println("");
             }
-            else {
-                msg = "Not a valid command";
+            else if (reset){
+                out.println(HELP);
             }
-            if (!msg.isEmpty()) {
-                if (reset) {
-                    System.out.println("h(int)              -- hint next move\n" +
-                            "l(oad) filename     -- load new puzzle file\n" +
-                            "m(ove) {N|S|E|W}    -- move the tipper in the given direction\n" +
-                            "q(uit)              -- quit the game\n" +
-                            "r(eset)             -- reset the current game");
-                }
-                gameLoop(reset);
+            else {
+                out.println("\n" + HELP);
             }
         }
     }
@@ -0,0 +1,178 @@
+package puzzles.common.solver;
+
+import puzzles.common.SessionManager;
+import puzzles.common.solver.SolveScheduler.Priority;
+import puzzles.tilt.model.TiltConfig;
+import puzzles.tilt.model.TiltModel;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks that interactive hints aren't held up by batch work. Needs no test
+ * framework: run it from the directory holding data, and it exits with an
+ * AssertionError if a check fails. The checks look at the order things
+ * happen in, never at how long they take.
+ */
+public class SolveSchedulerTest {
+    /** how long a check waits for a thread before calling it stuck */
+    private static final long STUCK_MINUTES = 1;
+
+    /**
+     * Run every check.
+     * @param args not used
+     * @throws Exception if a check can't be run
+     */
+    public static void main(String[] args) throws Exception {
+        interactiveGoesFirst();
+        hintSkipsQueuedPresolve();
+        System.out.println("SolveSchedulerTest passed");
+    }
+
+    /**
+     * Runs a batch solve on a one CPU scheduler and queues a second batch
+     * solve and then an interactive one behind it. When the first one gives
+     * way at the end of its layer, the interactive solve must run before
+     * either batch solve carries on.
+     * @throws Exception if a thread is interrupted
+     */
+    private static void interactiveGoesFirst() throws Exception {
+        SolveScheduler scheduler = new SolveScheduler(1, 1, 1, 4, 4);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread first = start(() -> scheduler.run(Priority.BATCH, () -> {
+            running.countDown();
+            awaitQuietly(release);
+            scheduler.yieldToInteractive();
+            return order.add("batch 1");
+        }));
+        running.await();
+        Thread second = start(() -> scheduler.run(Priority.BATCH, () -> order.add("batch 2")));
+        awaitWaiting(scheduler, Priority.BATCH);
+        Thread interactive = start(() -> scheduler.run(Priority.INTERACTIVE, () -> order.add("interactive")));
+        awaitWaiting(scheduler, Priority.INTERACTIVE);
+        release.countDown();
+        for (Thread thread : List.of(first, second, interactive)) {
+            thread.join(TimeUnit.MINUTES.toMillis(STUCK_MINUTES));
+            check(!thread.isAlive(), "a solve never finished: " + order);
+        }
+        check(order.size() == 3 && order.get(0).equals("interactive"),
+                "the interactive solve should run first: " + order);
+    }
+
+    /**
+     * Fills every batch slot of the shared scheduler with batch work that
+     * only gives way to interactive solves until it is released, so the
+     * speculative solve of a session's board is queued behind it, and looks
+     * for a hint on that board the way the GUI does. The hint must run as its
+     * own interactive solve, with the speculative solve still queued at every
+     * layer of it, instead of waiting in the shared cache for it.
+     * @throws Exception if the boards can't be read
+     */
+    private static void hintSkipsQueuedPresolve() throws Exception {
+        SolveScheduler scheduler = SolveScheduler.shared();
+        int slots = scheduler.limit(Priority.BATCH);
+        CountDownLatch admitted = new CountDownLatch(slots);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Thread> blockers = new ArrayList<>();
+        for (int i = 0; i < slots; i++) {
+            blockers.add(start(() -> scheduler.run(Priority.BATCH, () -> {
+                admitted.countDown();
+                // a layer ends every millisecond, where a batch solve gives way
+                while (!awaitQuietly(release, 1)) {
+                    scheduler.yieldToInteractive();
+                }
+                return null;
+            })));
+        }
+        admitted.await();
+        try (SessionManager<TiltConfig, TiltModel> sessions = new SessionManager<>(TiltConfig::new,
+                config -> config, (file, boards) -> new TiltModel(file, true, boards), Duration.ofMinutes(1))) {
+            TiltModel model = sessions.session("player", "data/tilt/tilt-4.txt");
+            awaitWaiting(scheduler, Priority.BATCH);
+            List<Integer> queued = Collections.synchronizedList(new ArrayList<>());
+            List<List<Configuration>> paths = Collections.synchronizedList(new ArrayList<>());
+            Thread hint = start(() -> paths.add(model.hintSearch(
+                    (depth, layer, generated, unique) -> queued.add(scheduler.waiting(Priority.BATCH))).get()));
+            hint.join(TimeUnit.MINUTES.toMillis(STUCK_MINUTES));
+            check(!hint.isAlive(), "the hint waited for the queued speculative solve");
+            check(paths.size() == 1 && paths.get(0).size() > 1, "the hint should find a path: " + paths);
+            check(!queued.isEmpty() && !queued.contains(0),
+                    "the speculative solve should stay queued while the hint runs: " + queued);
+        }
+        finally {
+            release.countDown();
+            for (Thread blocker : blockers) {
+                blocker.join();
+            }
+        }
+    }
+
+    /**
+     * Start a daemon thread.
+     * @param task what the thread runs
+     * @return the thread
+     */
+    private static Thread start(Runnable task) {
+        Thread thread = new Thread(task);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Wait until a solve of a priority is waiting for its turn.
+     * @param scheduler the scheduler
+     * @param priority the priority
+     */
+    private static void awaitWaiting(SolveScheduler scheduler, Priority priority) {
+        while (scheduler.waiting(priority) == 0) {
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Wait for a latch, carrying on if the thread is interrupted.
+     * @param latch the latch
+     */
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Wait for a latch for at most some milliseconds.
+     * @param latch the latch
+     * @param millis the longest wait
+     * @return true if the latch was released
+     */
+    private static boolean awaitQuietly(CountDownLatch latch, long millis) {
+        try {
+            return latch.await(millis, TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return true;
+        }
+    }
+
+    /**
+     * Fail if a condition doesn't hold.
+     * @param condition the condition
+     * @param message why the check failed
+     */
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package puzzles.tipover.model;
+
+import puzzles.common.Update;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks the TipOver model's undo history and announcements. Needs no test framework: run it
+ * from the directory holding data, and it exits with an AssertionError if a
+ * check fails.
+ */
+public class TipOverModelTest {
+    /** a board where the tipper can tip a tower north and walk east */
+    private static final String BOARD = "data/tipover/tipover-5.txt";
+
+    /**
+     * Run every check.
+     * @param args not used
+     * @throws Exception if a board can't be read
+     */
+    public static void main(String[] args) throws Exception {
+        walkAfterUndoIsNotATip();
+        tipIsOneUpdate();
+        System.out.println("TipOverModelTest passed");
+    }
+
+    /**
+     * Tips a tower, undoes the tip and walks. The walk must not be announced
+     * as a tip, as it isn't when the same walk is made without the undo.
+     * @throws Exception if the board can't be read
+     */
+    private static void walkAfterUndoIsNotATip() throws Exception {
+        List<String> fresh = play(false);
+        List<String> undone = play(true);
+        check(fresh.get(fresh.size() - 1).isEmpty(), "the walk should be a plain move: " + fresh);
+        List<String> afterUndo = undone.subList(undone.indexOf(TipOverModel.UNDONE) + 1, undone.size());
+        check(afterUndo.equals(fresh), "the walk after the undo was announced as " + afterUndo
+                + " instead of " + fresh);
+    }
+
+    /**
+     * Walk north and tip north, optionally undo the tip, then walk east from
+     * where the tipper stood before the tip.
+     * @param undo whether to tip and undo the tip before walking east
+     * @return every announcement after the first walk
+     * @throws Exception if the board can't be read
+     */
+    private static List<String> play(boolean undo) throws Exception {
+        TipOverModel model = new TipOverModel(BOARD, false);
+        List<String> announced = new ArrayList<>();
+        model.tipOver("N");
+        model.addObserver((subject, update) -> announced.add(update.message()));
+        if (undo) {
+            model.tipOver("N");
+            check(announced.contains(TipOverModel.TIPMSG), "the second move should tip: " + announced);
+            check(model.undo(), "the tip should be undoable");
+        }
+        model.tipOver("E");
+        model.close();
+        return announced;
+    }
+
+    /**
+     * Tips a tower. The tip message and the redraw must arrive together, in
+     * one update.
+     * @throws Exception if the board can't be read
+     */
+    private static void tipIsOneUpdate() throws Exception {
+        TipOverModel model = new TipOverModel(BOARD, false);
+        List<Update> announced = new ArrayList<>();
+        model.tipOver("N");
+        model.addObserver((subject, update) -> announced.add(update));
+        model.tipOver("N");
+        model.close();
+        check(announced.equals(List.of(new Update(TipOverModel.TIPMSG, true))),
+                "the tip should be announced once, with the redraw: " + announced);
+    }
+
+    /**
+     * Fail if a condition doesn't hold.
+     * @param condition the condition
+     * @param message why the check failed
+     */
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}